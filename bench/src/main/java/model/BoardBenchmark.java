@@ -0,0 +1,105 @@
+package model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the work done for every turn: choosing the best play, and the Deck methods it builds on. The ranks
+ * of the cards are updated by the Deck whenever a card moves, so their cost is part of deckCopy. Each
+ * benchmark cycles through Fixtures.COUNT seeded positions with the same number of undealt cards.
+ *
+ * Run with -prof gc to see the bytes allocated per operation next to the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    /**
+     * number of cards left in the deck
+     */
+    @Param({"0", "4", "9", "14"})
+    public int undealt;
+
+    /**
+     * the packed positions
+     */
+    private long[] states;
+
+    /**
+     * the same positions as boards, with their cards ranked
+     */
+    private Board[] boards;
+
+    /**
+     * the deck of each board
+     */
+    private Deck[] decks;
+
+    /**
+     * a card on each board
+     */
+    private cardModel[] cards;
+
+    /**
+     * index of the next position to use
+     */
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        states = Fixtures.states(undealt);
+        boards = new Board[Fixtures.COUNT];
+        decks = new Deck[Fixtures.COUNT];
+        cards = new cardModel[Fixtures.COUNT];
+        for (int i = 0; i < Fixtures.COUNT; i++) {
+            decks[i] = new Deck(states[i]);
+            boards[i] = Fixtures.board(states[i]);
+            boards[i].bestPlay();
+            cards[i] = decks[i].getCard(Integer.numberOfTrailingZeros(GameState.board(states[i])));
+        }
+    }
+
+    /**
+     * @return index of the position for this invocation
+     */
+    private int next() {
+        return next++ & (Fixtures.COUNT - 1);
+    }
+
+    /**
+     * Board.bestPlay caches its result, so every invocation plays on a fresh copy of the board. The copy shares the
+     * deck and only copies the list of cards on the board.
+     */
+    @Benchmark
+    public Play bestPlay() {
+        return new Board(boards[next()], 0).bestPlay();
+    }
+
+    @Benchmark
+    public int bestPlayPacked() {
+        return Board.bestPlay(states[next()]);
+    }
+
+    @Benchmark
+    public ArrayList<Play> getValidPlays() {
+        return boards[next()].getValidPlays();
+    }
+
+    @Benchmark
+    public BitSet deckGetPlays() {
+        int i = next();
+        return decks[i].getPlays(cards[i]);
+    }
+
+    @Benchmark
+    public Deck deckCopy() {
+        return decks[next()].copy();
+    }
+}
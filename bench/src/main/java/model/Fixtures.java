@@ -0,0 +1,73 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Reproducible positions for the benchmarks. A fixture is made by shuffling the 24 cards with a seeded Random: the
+ * first cards are discarded, the next five are on the board and the rest are still in the deck.
+ */
+final class Fixtures {
+
+    /**
+     * number of different positions each benchmark cycles through, so no single board is measured
+     */
+    static final int COUNT = 64;
+
+    /**
+     * fixtures are only made through the static methods
+     */
+    private Fixtures() {
+    }
+
+    /**
+     * @param seed    seed of the shuffle
+     * @param undealt number of cards left in the deck, at most 19
+     * @return packed game state (see GameState) with a complete board and a score of 0
+     */
+    static long state(long seed, int undealt) {
+        int[] ids = new int[GameState.CARDS];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = i;
+        Random random = new Random(seed);
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = ids[i];
+            ids[i] = ids[j];
+            ids[j] = t;
+        }
+        int discarded = GameState.CARDS - GameState.BOARD - undealt;
+        int board = 0, rest = 0;
+        for (int i = discarded; i < discarded + GameState.BOARD; i++)
+            board |= 1 << ids[i];
+        for (int i = discarded + GameState.BOARD; i < ids.length; i++)
+            rest |= 1 << ids[i];
+        return GameState.of(rest, board, 0);
+    }
+
+    /**
+     * @param undealt number of cards left in the deck
+     * @return COUNT packed states, made with the seeds 0 to COUNT - 1
+     */
+    static long[] states(int undealt) {
+        long[] states = new long[COUNT];
+        for (int i = 0; i < COUNT; i++)
+            states[i] = state(i, undealt);
+        return states;
+    }
+
+    /**
+     * make the position of a state with the object model, the way a game builds it
+     *
+     * @param state packed game state
+     * @return a board whose deck has the cards where the state has them
+     */
+    static Board board(long state) {
+        Deck deck = new Deck();
+        for (int cards = GameState.discarded(state); cards != 0; cards &= cards - 1)
+            deck.discard(cardModel.of(Integer.numberOfTrailingZeros(cards)));
+        Board board = new Board(deck);
+        for (int cards = GameState.board(state); cards != 0; cards &= cards - 1)
+            board.deal(deck.getCard(Integer.numberOfTrailingZeros(cards)));
+        return board;
+    }
+}
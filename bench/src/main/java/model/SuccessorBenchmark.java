@@ -0,0 +1,62 @@
+package model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the successor system, which grows exponentially with the number of cards left in the deck. Each
+ * benchmark cycles through Fixtures.COUNT seeded positions with the same number of undealt cards.
+ *
+ * Run with -prof gc to see the bytes allocated per operation next to the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SuccessorBenchmark {
+
+    /**
+     * number of cards left in the deck
+     */
+    @Param({"3", "5", "7"})
+    public int undealt;
+
+    /**
+     * the positions as boards
+     */
+    private Board[] boards;
+
+    /**
+     * index of the next position to use
+     */
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        long[] states = Fixtures.states(undealt);
+        boards = new Board[Fixtures.COUNT];
+        for (int i = 0; i < Fixtures.COUNT; i++)
+            boards[i] = Fixtures.board(states[i]);
+    }
+
+    /**
+     * @return a fresh copy of the board for this invocation, since Board.getSuccessors caches its result
+     */
+    private Board next() {
+        return new Board(boards[next++ & (Fixtures.COUNT - 1)], 0);
+    }
+
+    @Benchmark
+    public ArrayList<Board> getSuccessors() {
+        return next().getSuccessors(0);
+    }
+
+    @Benchmark
+    public int finalScoresMax() {
+        return next().finalScores(0).max().orElse(0);
+    }
+}
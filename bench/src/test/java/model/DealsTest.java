@@ -0,0 +1,65 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Every deal must come up exactly once, and the probabilities of all the deals must add up to 1.
+ */
+public class DealsTest {
+
+    @Test
+    public void everyDealComesUpOnce() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int t = 0; t < 200; t++) {
+            int from = random.nextInt() & GameState.ALL;
+            for (int count = 0; count <= Math.min(5, Integer.bitCount(from)); count++) {
+                Set<Integer> deals = new HashSet<>();
+                int last = -1;
+                for (int deal = Deals.first(from, count); deal >= 0; deal = Deals.next(from, deal)) {
+                    assertEquals(count, Integer.bitCount(deal));
+                    assertEquals(0, deal & ~from);
+                    assertTrue(deals.add(deal));
+                    assertTrue(deal > last);
+                    last = deal;
+                }
+                assertEquals(Deals.count(from, count), deals.size());
+            }
+        }
+    }
+
+    @Test
+    public void probabilitiesAddUpToOne() {
+        for (int n = 1; n <= GameState.CARDS; n++) {
+            int from = GameState.ALL >>> (GameState.CARDS - n);
+            for (int count = 1; count <= Math.min(3, n); count++) {
+                double total = 0;
+                for (int deal = Deals.first(from, count); deal >= 0; deal = Deals.next(from, deal))
+                    total += Deals.probability(from, count);
+                assertEquals(1, total, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void tooFewCardsMeansNoDeal() {
+        assertEquals(-1, Deals.first(0b101, 3));
+        assertEquals(-1, Deals.first(0, 1));
+        assertEquals(0, Deals.first(0, 0));
+        assertEquals(-1, Deals.next(0b101, 0b101));
+    }
+
+    @Test
+    public void combinations() {
+        assertEquals(1, Deals.combinations(0, 0));
+        assertEquals(0, Deals.combinations(2, 3));
+        assertEquals(0, Deals.combinations(2, -1));
+        assertEquals(1140, Deals.combinations(20, 3));
+        assertEquals(42504, Deals.combinations(GameState.CARDS, GameState.BOARD));
+    }
+}
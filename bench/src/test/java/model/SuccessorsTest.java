@@ -0,0 +1,55 @@
+package model;
+
+import model.solver.Distribution;
+import model.solver.PolicyEvaluator;
+import model.solver.Solver;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The successors of a board are the ends of the games that follow Board.bestPlay, so they must add up to the same
+ * distribution of the final score as the PolicyEvaluator finds for it.
+ */
+public class SuccessorsTest {
+
+    @Test
+    public void successorsAddUpToTheDistributionOfThePolicy() {
+        PolicyEvaluator evaluator = new PolicyEvaluator();
+        for (int undealt = 1; undealt <= 6; undealt++)
+            for (long state : Fixtures.states(undealt)) {
+                Distribution distribution = evaluator.evaluate(state);
+                double[] bins = new double[distribution.getMax() / Distribution.BIN + 1];
+                double total = 0;
+                for (Board end : (Iterable<Board>) Fixtures.board(state).successors(0)::iterator) {
+                    bins[end.getCurrentScore() / Distribution.BIN] += end.getProbability();
+                    total += end.getProbability();
+                }
+                assertEquals(1, total, 1e-9);
+                for (int bin = 0; bin < bins.length; bin++)
+                    assertEquals(GameState.toString(state), distribution.getProbability(bin * Distribution.BIN),
+                            bins[bin], 1e-9);
+            }
+    }
+
+    @Test
+    public void noSuccessorBeatsTheSolver() {
+        for (long state : Fixtures.states(5)) {
+            int best = new Solver().solve(state);
+            assertTrue(Fixtures.board(state).finalScores(0).allMatch(score -> score <= best));
+        }
+    }
+
+    @Test
+    public void theLastHandIsCounted() {
+        for (long state : Fixtures.states(1)) {
+            int play = Board.bestPlay(state);
+            int points = (Integer.bitCount(play) == 3) ? PlayTable.scoreOf(play) : 0;
+            long end = GameState.deal(GameState.play(state, play, points), GameState.undealt(state));
+            long[] ends = Fixtures.board(state).endStates(0).toArray();
+            assertEquals(1, ends.length);
+            assertEquals(points + PlayTable.bestHand(GameState.board(end)), GameState.score(ends[0]));
+            assertEquals(GameState.board(end), GameState.board(ends[0]));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package model.solver;
+
+import model.Board;
+import model.GameState;
+import model.PlayTable;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * What a session keeps from turn to turn must not change what it finds.
+ */
+public class SolverSessionTest {
+
+    @Test
+    public void advanceKeepsTheResultsOfLaterTurns() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int game = 0; game < 3; game++) {
+            SolverSession session = new SolverSession(16L << 20, null, null);
+            try {
+                long state = TranspositionTableTest.state(random, 7);
+                while (!GameState.isEnd(state)) {
+                    assertEquals(new Solver().solve(state), session.getSolver().solve(state));
+                    assertEquals(new Expectimax().bestPlay(state), session.getAdvisor().bestPlay(state));
+                    assertEquals(new PolicyEvaluator().evaluate(state).getMean(),
+                            session.getEvaluator().evaluate(state).getMean(), 1e-9);
+                    state = next(state, random);
+                    session.advance(state);
+                }
+            } finally {
+                session.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void advanceForgetsWhatCanNoLongerBeReached() {
+        SolverSession session = new SolverSession(16L << 20, null, null);
+        try {
+            SplittableRandom random = new SplittableRandom(8);
+            long state = TranspositionTableTest.state(random, 6);
+            session.getSolver().solve(state);
+            session.getAdvisor().bestPlay(state);
+            assertTrue(session.advance(next(state, random)) > 0);
+            assertEquals(0, session.advance(GameState.of(GameState.ALL, 0, 0)));
+        } finally {
+            session.shutdown();
+        }
+    }
+
+    /**
+     * @param state  a state that isn't the end of the game
+     * @param random where the cards dealt are drawn from
+     * @return the state after the best play and a random deal
+     */
+    private static long next(long state, SplittableRandom random) {
+        int play = Board.bestPlay(state);
+        long next = GameState.play(state, play, (Integer.bitCount(play) == 3) ? PlayTable.scoreOf(play) : 0);
+        for (int i = Integer.bitCount(play); (i > 0) && (GameState.undealt(next) != 0); i--) {
+            int undealt = GameState.undealt(next);
+            int card = undealt;
+            for (int skip = random.nextInt(Integer.bitCount(undealt)); skip > 0; skip--)
+                card &= card - 1;
+            next = GameState.deal(next, card & -card);
+        } return next;
+    }
+}
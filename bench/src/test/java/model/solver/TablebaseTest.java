@@ -0,0 +1,142 @@
+package model.solver;
+
+import model.Deals;
+import model.GameState;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trip of a tablebase through its file: every value read back must be the one the Solver finds, every position
+ * must have an index of its own, and a file that doesn't match the format must be rejected.
+ */
+public class TablebaseTest {
+
+    @ClassRule
+    public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+    /**
+     * a tablebase of every position with one undealt card, written once for all the tests
+     */
+    private static File file;
+
+    @BeforeClass
+    public static void generate() throws IOException {
+        file = FOLDER.newFile("test.tb");
+        TablebaseGenerator.generate(file, 1);
+    }
+
+    @Test
+    public void valuesMatchTheSolver() throws IOException {
+        Tablebase tablebase = Tablebase.open(file);
+        assertEquals(1, tablebase.getLimit());
+        Solver solver = new Solver(new TranspositionTable(16), () -> false);
+        for (int board = Deals.first(GameState.ALL, GameState.BOARD); board >= 0;
+             board = Deals.next(GameState.ALL, board)) {
+            int rest = GameState.ALL & ~board;
+            for (int undealt = Deals.first(rest, 1); undealt >= 0; undealt = Deals.next(rest, undealt)) {
+                long state = GameState.of(undealt, board, 0);
+                assertTrue(tablebase.covers(state));
+                assertEquals(GameState.toString(state), solver.solve(state), tablebase.get(state));
+            }
+        }
+    }
+
+    @Test
+    public void positionsOutsideTheLimitAreNotCovered() throws IOException {
+        Tablebase tablebase = Tablebase.open(file);
+        int board = Deals.first(GameState.ALL, GameState.BOARD);
+        assertEquals(-1, tablebase.get(GameState.of(0, board, 0)));
+        assertEquals(-1, tablebase.get(GameState.of(0x3 << GameState.BOARD, board, 0)));
+        assertEquals(-1, tablebase.get(GameState.of(1 << GameState.BOARD, board & (board - 1), 0)));
+    }
+
+    @Test
+    public void indexIsPerfect() {
+        int limit = 3;
+        BitSet used = new BitSet(Tablebase.size(limit));
+        for (int board = Deals.first(GameState.ALL, GameState.BOARD); board >= 0;
+             board = Deals.next(GameState.ALL, board)) {
+            int rest = GameState.ALL & ~board;
+            for (int u = 1; u <= limit; u++)
+                for (int undealt = Deals.first(rest, u); undealt >= 0; undealt = Deals.next(rest, undealt)) {
+                    int index = Tablebase.index(GameState.of(undealt, board, 0));
+                    assertTrue(index >= 0 && index < Tablebase.size(limit));
+                    assertFalse("index " + index + " is used twice", used.get(index));
+                    used.set(index);
+                }
+        }
+        assertEquals(Tablebase.size(limit), used.cardinality());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnotherMagicNumber() throws IOException {
+        Tablebase.open(withInt(0, Tablebase.MAGIC + 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnotherVersion() throws IOException {
+        Tablebase.open(withInt(4, Tablebase.VERSION + 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnotherDeck() throws IOException {
+        Tablebase.open(withInt(8, GameState.CARDS + 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsALimitThatDoesNotMatchTheSize() throws IOException {
+        Tablebase.open(withInt(12, 2));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsATruncatedFile() throws IOException {
+        File copy = copy();
+        try (RandomAccessFile out = new RandomAccessFile(copy, "rw")) {
+            out.setLength(out.length() - 1);
+        }
+        Tablebase.open(copy);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAFileShorterThanTheHeader() throws IOException {
+        File copy = copy();
+        try (RandomAccessFile out = new RandomAccessFile(copy, "rw")) {
+            out.setLength(Tablebase.HEADER - 1);
+        }
+        Tablebase.open(copy);
+    }
+
+    /**
+     * @param offset offset of an int of the header
+     * @param value  value to write there
+     * @return a copy of the tablebase file with that int of its header replaced
+     */
+    private static File withInt(int offset, int value) throws IOException {
+        File copy = copy();
+        try (RandomAccessFile out = new RandomAccessFile(copy, "rw")) {
+            out.seek(offset);
+            out.writeInt(value);
+        }
+        return copy;
+    }
+
+    /**
+     * @return a new copy of the tablebase file
+     */
+    private static File copy() throws IOException {
+        File copy = FOLDER.newFile();
+        Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+}
@@ -0,0 +1,154 @@
+package model.solver;
+
+import model.GameState;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * The table may forget a state, but it must never return the value of another one.
+ */
+public class TranspositionTableTest {
+
+    /**
+     * @param seed seed of the keys
+     * @param n    number of keys
+     * @return n different random 48-bit keys
+     */
+    static long[] keys(long seed, int n) {
+        return new SplittableRandom(seed).longs(0, 1L << 48).distinct().limit(n).toArray();
+    }
+
+    /**
+     * @param key key of a state
+     * @return a value to store for it, in [0, 65535)
+     */
+    static int value(long key) {
+        return (int) (key % 65535);
+    }
+
+    /**
+     * @param random  where the cards are drawn from
+     * @param undealt number of cards left in the deck
+     * @return a state with a complete board, that many undealt cards and the rest discarded
+     */
+    static long state(SplittableRandom random, int undealt) {
+        int[] ids = new int[GameState.CARDS];
+        for (int i = 0; i < ids.length; i++) {
+            int j = random.nextInt(i + 1);
+            ids[i] = ids[j];
+            ids[j] = i;
+        }
+        int board = 0, deck = 0;
+        for (int i = 0; i < GameState.BOARD; i++)
+            board |= 1 << ids[i];
+        for (int i = GameState.BOARD; i < GameState.BOARD + undealt; i++)
+            deck |= 1 << ids[i];
+        return GameState.of(deck, board, 0);
+    }
+
+    @Test
+    public void getReturnsWhatWasPut() {
+        TranspositionTable table = new TranspositionTable(16);
+        long[] keys = keys(1, 1000);
+        for (long key : keys)
+            table.put(key, value(key));
+        for (long key : keys)
+            assertEquals(value(key), table.get(key));
+    }
+
+    @Test
+    public void missingKeysAreNotFound() {
+        TranspositionTable table = new TranspositionTable(10);
+        long[] keys = keys(2, 2000);
+        for (int i = 0; i < 1000; i++)
+            table.put(keys[i], value(keys[i]));
+        for (int i = 1000; i < keys.length; i++)
+            assertEquals(-1, table.get(keys[i]));
+    }
+
+    @Test
+    public void fullBucketsNeverMixUpStates() {
+        TranspositionTable table = new TranspositionTable(6);
+        long[] keys = keys(3, 5000);
+        int found = 0;
+        for (long key : keys)
+            table.put(key, value(key));
+        for (long key : keys) {
+            int v = table.get(key);
+            assertTrue((v == -1) || (v == value(key)));
+            if (v >= 0)
+                found++;
+        }
+        assertTrue(found > 0);
+    }
+
+    @Test
+    public void putReplacesTheValueOfAState() {
+        TranspositionTable table = new TranspositionTable(8);
+        table.put(42, 10);
+        table.put(42, 65534);
+        assertEquals(65534, table.get(42));
+        table.put(0, 0);
+        assertEquals(0, table.get(0));
+        table.clear();
+        assertEquals(-1, table.get(42));
+        assertEquals(-1, table.get(0));
+    }
+
+    @Test
+    public void threadsShareTheTable() {
+        TranspositionTable table = new TranspositionTable(12);
+        long[] keys = keys(4, 20000);
+        LongStream.of(keys).parallel().forEach(key -> table.put(key, value(key)));
+        LongStream.of(keys).parallel().forEach(key -> {
+            int v = table.get(key);
+            assertTrue((v == -1) || (v == value(key)));
+        });
+    }
+
+    @Test
+    public void retainKeepsTheOtherEntriesFindable() {
+        TranspositionTable table = new TranspositionTable(8);
+        long[] keys = keys(6, 400);
+        for (long key : keys)
+            table.put(key, value(key));
+        int stored = 0, odd = 0;
+        boolean[] found = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            if (table.get(keys[i]) >= 0) {
+                found[i] = true;
+                stored++;
+                if ((keys[i] & 1) != 0)
+                    odd++;
+            }
+        assertTrue(stored > 100);
+        assertEquals(odd, table.retain(key -> (key & 1) == 0));
+        for (int i = 0; i < keys.length; i++)
+            if (((keys[i] & 1) == 0) && found[i])
+                assertEquals(value(keys[i]), table.get(keys[i]));
+            else
+                assertEquals(-1, table.get(keys[i]));
+    }
+
+    @Test
+    public void solverDoesNotDependOnTheSizeOfItsTable() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 20; i++) {
+            long state = state(random, 4);
+            assertEquals(new Solver(new TranspositionTable(18)).solve(state),
+                    new Solver(new TranspositionTable(6)).solve(state));
+        }
+    }
+
+    @Test
+    public void bitsForFitsTheMemory() {
+        assertEquals(20, TranspositionTable.bitsFor(8L << 20, 30));
+        assertEquals(19, TranspositionTable.bitsFor((8L << 20) - 1, 30));
+        assertEquals(22, TranspositionTable.bitsFor(1L << 40, 22));
+        assertEquals(0, TranspositionTable.bitsFor(0, 22));
+    }
+}
@@ -0,0 +1,56 @@
+package model.solver;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Like the TranspositionTable, the ValueTable may forget a state but must never return the value of another one.
+ */
+public class ValueTableTest {
+
+    @Test
+    public void getReturnsWhatWasPut() {
+        ValueTable table = new ValueTable(16);
+        long[] keys = TranspositionTableTest.keys(1, 1000);
+        for (long key : keys)
+            table.put(key, key / 3.0);
+        for (long key : keys)
+            assertEquals(key / 3.0, table.get(key), 0);
+        assertTrue(Double.isNaN(table.get(1L << 47)));
+    }
+
+    @Test
+    public void fullBucketsNeverMixUpStates() {
+        ValueTable table = new ValueTable(6);
+        long[] keys = TranspositionTableTest.keys(3, 5000);
+        for (long key : keys)
+            table.put(key, key / 3.0);
+        for (long key : keys) {
+            double v = table.get(key);
+            assertTrue(Double.isNaN(v) || (v == key / 3.0));
+        }
+    }
+
+    @Test
+    public void retainKeepsTheOtherEntriesFindable() {
+        ValueTable table = new ValueTable(8);
+        long[] keys = TranspositionTableTest.keys(6, 400);
+        for (long key : keys)
+            table.put(key, key / 3.0);
+        int odd = 0;
+        boolean[] found = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            if (!Double.isNaN(table.get(keys[i]))) {
+                found[i] = true;
+                if ((keys[i] & 1) != 0)
+                    odd++;
+            }
+        assertEquals(odd, table.retain(key -> (key & 1) == 0));
+        for (int i = 0; i < keys.length; i++)
+            if (((keys[i] & 1) == 0) && found[i])
+                assertEquals(keys[i] / 3.0, table.get(keys[i]), 0);
+            else
+                assertTrue(Double.isNaN(table.get(keys[i])));
+    }
+}
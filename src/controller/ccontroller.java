@@ -1,17 +1,75 @@
 package controller;
 
 import model.*;
+import model.solver.*;
 import view.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * ccontroller manages interaction between the view and the model. To make notifying the scoreboard easier, I've
  * implemented the Observer pattern such that the scoreboard can be registered for changes directly from the controller.
  *
+ * Solving for the highest achievable score can take a while, so it runs on a background thread. Its result is handed
+ * back to the observers through the executor given to the constructor (for the UI, the JavaFX application thread), and
+ * a solve that is still running is cancelled as soon as the board changes.
+ *
  * @author Will Clifford (GitHub: wtc8754)
  */
 public class ccontroller implements ScoreObserver {
 
+    /**
+     * the highest achievable score is only solved exactly once fewer than this many cards are left in the deck
+     */
+    private static final int SOLVE_LIMIT = 11;
+
+    /**
+     * the distribution of the final score is only computed exactly once fewer than this many cards are left in the
+     * deck; before that it is sampled
+     */
+    private static final int DISTRIBUTION_LIMIT = 14;
+
+    /**
+     * most cards in the deck for which the optimal play is searched. with more, Board.bestPlay stays suggested.
+     */
+    private static final int ADVICE_LIMIT = 9;
+
+    /**
+     * number of games sampled for the distribution of the final score
+     */
+    private static final long SAMPLES = 50_000;
+
+    /**
+     * time given to the anytime solver before a first bound is shown, in milliseconds
+     */
+    private static final long BUDGET = 200;
+
+    /**
+     * file of the endgame tablebase (see TablebaseGenerator), looked for in the working directory
+     */
+    private static final String TABLEBASE_FILE = "greenlight.tb";
+
+    /**
+     * endgame values, mapped once when the first controller is made. null if there is no usable tablebase file.
+     */
+    private static final Tablebase TABLEBASE = openTablebase();
+
+    /**
+     * memory the solvers may take, in bytes (see SolverSession). it can be set in MB with -Dgreenlight.memory=...; by
+     * default it is a quarter of the heap.
+     */
+    private static final long MEMORY =
+            Long.getLong("greenlight.memory", Runtime.getRuntime().maxMemory() >> 22) << 20;
+
+    /**
+     * logs the metrics of every solve, at Level.FINE, and the solves that fail, at Level.WARNING
+     */
+    private static final Logger LOG = Logger.getLogger(ccontroller.class.getName());
+
     /**
      * ScoreObservers from view stored in an ArrayList
      */
@@ -37,11 +95,89 @@ public class ccontroller implements ScoreObserver {
      */
     private int bestScore = -1;
 
+    /**
+     * false if bestScore is only a lower bound on the highest achievable score
+     */
+    private boolean bestExact = true;
+
     /**
      * the play that is suggested to be played.
      */
     private Play suggested;
 
+    /**
+     * the optimal plays that speculate found for the completions of the board, by packed state. emptied every turn.
+     */
+    private Map<Long, Integer> speculated = new ConcurrentHashMap<>();
+
+    /**
+     * counts the work of the solvers. it is reset at the start of every solve.
+     */
+    private SolverMetrics metrics = new SolverMetrics();
+
+    /**
+     * the metrics of the last solve that ended, null if none has
+     */
+    private volatile MetricsSnapshot lastMetrics;
+
+    /**
+     * the solvers and what they have learned. it is kept for the whole game, since positions solved on one turn are
+     * often reached again on the next. endgame positions are looked up in the tablebase, if there is one.
+     */
+    private SolverSession session = new SolverSession(MEMORY, TABLEBASE, metrics);
+
+    /**
+     * samples the distribution of the final score early in the game
+     */
+    private MonteCarlo sampler = new MonteCarlo();
+
+    /**
+     * runs the solves, so that the thread calling the controller never waits for the solver
+     */
+    private ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "solver");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * executor that delivers the results of solves to the observers
+     */
+    private Executor updates;
+
+    /**
+     * the solve that is running, null if there is none
+     */
+    private Future<?> solving;
+
+    /**
+     * number of solves started or cancelled so far. used to drop the result of a solve that was cancelled too late.
+     */
+    private int solves = 0;
+
+    /**
+     * @param updates executor that notifies the observers of solved scores and changes the suggestion, e.g.
+     *                Platform::runLater. it must run them on the thread that calls the controller.
+     */
+    public ccontroller(Executor updates) {
+        this.updates = updates;
+    }
+
+    /**
+     * @return the tablebase in TABLEBASE_FILE, or null if there is none or it was made by another version
+     */
+    private static Tablebase openTablebase() {
+        File file = new File(TABLEBASE_FILE);
+        if (!file.isFile())
+            return null;
+        try {
+            return Tablebase.open(file);
+        } catch (IOException e) {
+            System.err.println("ignoring tablebase: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * contact the correct cardViews, and indicate the correct cards to play.
      *
@@ -51,55 +187,249 @@ public class ccontroller implements ScoreObserver {
         this.suggested = pm;
         if (pm.isRemoval())
             for (cardModel mc : pm.cards())
-                mc.suggestRemove();
+                deck.suggestRemove(mc);
         else
             for (cardModel mc : pm.cards())
-                mc.suggestPlay();
+                deck.suggestPlay(mc);
     }
 
     /**
      * make the play for the model. This usually follows the cards to be reset from the last turn.
      */
     public void play() {
+        cancel();
         if (suggested != null) {
             for (cardModel c : suggested.cards())
-                c.discard();
+                deck.discard(c);
             if (!suggested.isRemoval())
                 score += suggested.score();
-            config = new Board(config, score, false);
+            config = new Board(config, score);
             suggested = null;
-            updateScore(score, bestScore);
+            speculated.clear();
+            updateBound(score, bestScore, bestExact);
+            speculate();
         }
     }
 
     /**
-     * add a card to the board configuration. If the configuration is complete, then suggest the next play.
+     * add a card to the board configuration. If the configuration is complete, then suggest the next play; if not,
+     * start solving the ways it can be completed.
      *
      * @param cv cardView to add.
      */
     public void cardAdded(cardView cv) {
         config.deal(cv);
         if (config.isComplete()) {
+            cancel();
+            suggest(advice());
             checkSuccs();
-            updateScore(score, bestScore);
-            suggest(config.bestPlay());
+        } else
+            speculate();
+    }
+
+    /**
+     * while the user enters the rest of the board, solve every way it can be completed in the background, at low
+     * priority. All of it runs on the one solver thread, the exact solves included, so the other cores stay free.
+     * Each completion is solved as far as checkSuccs would solve it, so the results are in the session by the time the
+     * last card is entered, and checkSuccs mostly finds them there. The speculation is cancelled as soon as another
+     * one or a solve starts; whatever it solved so far stays in the session.
+     */
+    private void speculate() {
+        cancel();
+        long state = config.getState();
+        int from = GameState.undealt(state);
+        int missing = Math.min(GameState.BOARD - Integer.bitCount(GameState.board(state)), Integer.bitCount(from));
+        int undealt = Integer.bitCount(from) - missing;
+        if ((missing == 0) || (undealt >= SOLVE_LIMIT))
+            return;
+        solving = background.submit(() -> {
+            Thread thread = Thread.currentThread();
+            thread.setPriority(Thread.MIN_PRIORITY);
+            String outcome = "failed";
+            try {
+                presolve(state, from, missing, undealt);
+                outcome = "completed";
+            } catch (CancellationException e) {
+                outcome = "cancelled"; // the board changed, or the user was faster
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "speculation with " + missing + " cards missing failed", e);
+            } finally {
+                thread.setPriority(Thread.NORM_PRIORITY);
+                LOG.log(Level.FINE, "speculation {0} with {1} cards missing", new Object[]{outcome, missing});
+            }
+        });
+    }
+
+    /**
+     * solve every completion of a board as far as checkSuccs would: the optimal play, the exact highest score and the
+     * distribution of the final score. The distribution is only computed where the optimal play is, since it takes far
+     * longer per position than the others.
+     *
+     * @param state   packed state with an incomplete board
+     * @param from    bitmask of the cards that can still be dealt
+     * @param count   number of cards to deal to complete the board
+     * @param undealt number of cards left in the deck once the board is complete
+     */
+    private void presolve(long state, int from, int count, int undealt) {
+        for (int deal = Deals.first(from, count); deal >= 0; deal = Deals.next(from, deal)) {
+            if (Thread.currentThread().isInterrupted())
+                throw new CancellationException();
+            long complete = GameState.deal(state, deal);
+            if ((undealt > 0) && (undealt <= ADVICE_LIMIT)) {
+                speculated.put(complete, session.getAdvisor().bestPlay(complete));
+                try {
+                    session.getEvaluator().evaluate(complete);
+                } catch (BudgetExceededException ignored) {
+                    // checkSuccs will fall back to sampling
+                }
+            }
+            session.getSequential().solve(complete);
         }
     }
 
     /**
-     * retrieve and sort successor boards, and save the highest score.
+     * the play to suggest for the complete board right away: the optimal play if speculate already found it, and
+     * Board.bestPlay otherwise. This never waits for the solver, so entering a card stays as fast as it was.
+     *
+     * @return the play to suggest
+     */
+    private Play advice() {
+        Integer play = speculated.get(config.getState());
+        return (play != null) ? Play.of(play) : config.bestPlay();
+    }
+
+    /**
+     * start solving for the highest achievable score in the background. once few enough cards are left in the deck,
+     * the optimal play is searched first, unless speculate already found it, and replaces the suggestion if it differs.
+     * within BUDGET milliseconds the observers get a first bound, followed by the distribution of the final score; if
+     * the bound isn't exact and few enough cards are left in the deck, the exact score follows. once every result is
+     * out, the session drops the positions that this turn made unreachable. The caller cancels whatever ran before.
      */
     private void checkSuccs() {
-        if ((deck.getUndealt().size() < 8) && (config.bestPlay().isRemoval()) ||
-                ((deck.getUndealt().size() < 7) && (!config.bestPlay().isRemoval()))) {
-            updateScore(score, -100);
-            ArrayList<Board> succs = config.getSuccessors(score);
-            succs.sort((o1, o2) -> o2.getCurrentScore() - o1.getCurrentScore());
-            if (succs.size() > 0)
-                bestScore = succs.get(0).getCurrentScore();
+        updateScore(score, -100);
+        updateDistribution(score, null);
+        long state = config.getState();
+        int undealt = deck.getUndealt().size();
+        boolean solveExact = undealt < SOLVE_LIMIT;
+        boolean evaluateExact = undealt < DISTRIBUTION_LIMIT;
+        boolean advise = (undealt > 0) && (undealt <= ADVICE_LIMIT) && !speculated.containsKey(state);
+        int id = solves;
+        solving = background.submit(() -> {
+            metrics.reset();
+            String outcome = "failed";
+            try {
+                if (advise) {
+                    int play = session.getAdvisor().bestPlay(state);
+                    updates.execute(() -> advised(id, play));
+                }
+                Bound bound = session.getAnytime().solve(state, BUDGET);
+                updates.execute(() -> solved(id, bound.getLower(), bound.isExact()));
+                Distribution distribution = evaluateExact ? evaluate(state)
+                        : sampler.distribution(state, SAMPLES, state);
+                updates.execute(() -> evaluated(id, distribution));
+                if (!bound.isExact() && solveExact) {
+                    int best = session.getSolver().solve(state);
+                    updates.execute(() -> solved(id, best, true));
+                }
+                long dropped = session.advance(state);
+                LOG.log(Level.FINE, "solve {0} dropped {1} unreachable positions", new Object[]{id, dropped});
+                outcome = "completed";
+            } catch (CancellationException e) {
+                outcome = "cancelled";
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "solve " + id + " with " + undealt + " undealt failed", e);
+            } finally {
+                lastMetrics = metrics.snapshot();
+                LOG.log(Level.FINE, "solve {0} {1} with {2} undealt: {3}",
+                        new Object[]{id, outcome, undealt, lastMetrics});
+            }
+        });
+    }
+
+    /**
+     * @param state packed game state
+     * @return the exact distribution of the final score from that state, or a sampled one if the exact one needs more
+     * memory than the evaluator may take
+     */
+    private Distribution evaluate(long state) {
+        try {
+            return session.getEvaluator().evaluate(state);
+        } catch (BudgetExceededException e) {
+            metrics.degraded();
+            LOG.log(Level.INFO, "sampling the distribution instead: {0}", e.getMessage());
+            return sampler.distribution(state, SAMPLES, state);
+        }
+    }
+
+    /**
+     * @return what the solvers did during the last solve that ended, or null if none has. the solves run in the
+     * background, so this may be the solve of an earlier turn.
+     */
+    public MetricsSnapshot getLastMetrics() {
+        return lastMetrics;
+    }
+
+    /**
+     * called through the update executor when a solve has found a score
+     *
+     * @param id    number of the solve
+     * @param best  the highest achievable score it found
+     * @param exact true iff that score is exact, rather than a lower bound
+     */
+    private void solved(int id, int best, boolean exact) {
+        if (id == solves) {
+            bestScore = best;
+            bestExact = exact;
+            updateBound(score, bestScore, bestExact);
         }
     }
 
+    /**
+     * called through the update executor when the optimal play is known. it replaces the suggestion of Board.bestPlay
+     * if it is a different play.
+     *
+     * @param id   number of the solve
+     * @param play bitmask of the cards of the optimal play
+     */
+    private void advised(int id, int play) {
+        if ((id != solves) || (suggested == null) || (suggested.mask() == play))
+            return;
+        for (cardModel mc : suggested.cards())
+            deck.clearSuggestion(mc);
+        suggest(Play.of(play));
+    }
+
+    /**
+     * called through the update executor when the distribution of the final score is known
+     *
+     * @param id           number of the solve
+     * @param distribution probability of each final score
+     */
+    private void evaluated(int id, Distribution distribution) {
+        if (id == solves)
+            updateDistribution(score, distribution);
+    }
+
+    /**
+     * cancel the solve that is running, if any
+     */
+    public void cancel() {
+        if (solving != null) {
+            solving.cancel(true);
+            solving = null;
+        } solves++;
+    }
+
+    /**
+     * cancel any solve and stop the background threads of this controller. it can't solve anymore afterwards.
+     */
+    public void shutdown() {
+        cancel();
+        background.shutdownNow();
+        session.shutdown();
+        sampler.shutdown();
+    }
+
     /**
      * Register an object for updates to score.
      *
@@ -120,4 +450,29 @@ public class ccontroller implements ScoreObserver {
         for (ScoreObserver so : observs)
             so.updateScore(score, maxscore);
     }
+
+    /**
+     * Update all observers of a change to the highest achievable score, which may only be a lower bound.
+     *
+     * @param score    the current score
+     * @param maxscore a final score that can be reached
+     * @param exact    true iff no higher final score can be reached
+     */
+    @Override
+    public void updateBound(int score, int maxscore, boolean exact) {
+        for (ScoreObserver so : observs)
+            so.updateBound(score, maxscore, exact);
+    }
+
+    /**
+     * Update all observers of a change to the distribution of the final score.
+     *
+     * @param score        the current score
+     * @param distribution probability of each final score, null while it is being calculated
+     */
+    @Override
+    public void updateDistribution(int score, Distribution distribution) {
+        for (ScoreObserver so : observs)
+            so.updateDistribution(score, distribution);
+    }
 }
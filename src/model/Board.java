@@ -1,15 +1,25 @@
 package model;
 
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import model.enums.*;
-import view.*;
 
 /**
  * @author Will Clifford (GitHub: wtc8754)
  */
 public class Board {
 
+    /**
+     * number of bits of the cost of one card in the packed costs of bestPlay. a cost is at most a third of the highest
+     * score of a play, so it takes far fewer.
+     */
+    private static final int COST_BITS = 8;
+
     /**
      * list of Cards On the Board
      */
@@ -32,6 +42,11 @@ public class Board {
      */
     private int currentscore = 0;
 
+    /**
+     * probability of reaching this board from the one it is a successor of, 1 if it isn't a successor
+     */
+    private double probability = 1;
+
     /**
      * deck of cards for this game
      */
@@ -47,74 +62,111 @@ public class Board {
     }
 
     /**
-     * used to make a board from a previous board
+     * make the board of the next turn: the cards of the last board that were not played stay on it, and it shares the
+     * deck of the last board.
      *
-     * @param last        the board that this board was once.
-     * @param isSuccessor whether or not this is used in the successor system. used to ensure that that system is
-     *                    non-destructive
+     * @param last         the board of the last turn, after its play was discarded
+     * @param currentscore the score after that play
      */
-    public Board(Board last, int currentscore, boolean isSuccessor) {
-        if (isSuccessor) {
-            deck = last.getDeck().copy();
-            for (cardModel cm : last.getCOB()) {
-                if (!last.bestPlay().cards().contains(cm)) {
-                    cm.deal(null);
-                    cob.add(cm);
-                } this.currentscore = last.bestPlay().score() + currentscore;
+    public Board(Board last, int currentscore) {
+        deck = last.getDeck();
+        for (cardModel cm : last.getCOB()) {
+            if (deck.getLoc(cm) != location.DISCARDED) {
+                this.cob.add(cm);
             }
-        } else {
-            deck = last.getDeck();
-            for (cardModel cm : last.getCOB()) {
-                if (!cm.getLoc().equals(location.DISCARDED)) {
-                    this.cob.add(cm);
-                }
-            } this.currentscore = currentscore;
-        }
+        } this.currentscore = currentscore;
+    }
+
+    /**
+     * make an end-of-game board from a packed game state. only used for the successors of a board.
+     *
+     * @param state       packed game state (see GameState)
+     * @param probability probability of reaching that state
+     */
+    private Board(long state, double probability) {
+        this.deck = new Deck(state);
+        for (int cards = GameState.board(state); cards != 0; cards &= cards - 1)
+            cob.add(deck.getCard(Integer.numberOfTrailingZeros(cards)));
+        this.currentscore = GameState.score(state);
+        this.probability = probability;
     }
 
     /**
      * Get all successors for this board. a 'successor' is defined as an END GAME board configuration that has come out
-     * of this.
+     * of this. The search itself branches on packed GameStates, so no Deck or cardModel is copied along the way; only
+     * the end-of-game boards that are returned are made into Board objects. Every set of cards that can be dealt is
+     * followed once, and each successor knows the probability of the deals that led to it (see getProbability). The
+     * current score of a successor is the final score of the game, with the best hand left on its board.
      *
-     * WARNING: this algorithm is extremely computationally intensive. This should not be done with a full deck or a
-     * nearly full deck. The time and memory used by this algorithm is exponential and can crash the JVM or your PC if
-     * you aren't careful.
+     * WARNING: this collects every successor in memory, and there can be a huge number of them with a full deck or a
+     * nearly full deck. Use getSuccessors(cs, limit) to keep at most a given number of them, or successors, endStates
+     * or finalScores to go through them one at a time instead.
      *
      * @param cs current score
      * @return an arraylist of the successors of this board
      */
     public ArrayList<Board> getSuccessors(int cs) {
         if (!succSet) {
-            if (bestPlay().isRemoval()) {
-                for (cardModel cm : getDeck().getUndealt()) {
-                    Board nb = new Board(this, cs, true);
-                    nb.bestPlay().cards().get(0).discard();
-                    nb.deal(cm);
-                    if (nb.isEnd()) {
-                        succ.add(nb);
-                    } else {
-                        succ.addAll(nb.getSuccessors(cs + nb.bestPlay().score()));
-                    }
-                }
-            } else {
-                ArrayList<cardModel> r1 = getDeck().getUndealt();
-                for (int x = 0; x < r1.size(); x++) {
-                    for (int y = 0; (y < r1.size()) && (y != x); y++) {
-                        for (int z = 0; (z < r1.size()) && (z != y); z++) {
-                            Board nb = new Board(this, cs, true);
-                            nb.deal(r1.get(x), r1.get(y), r1.get(z));
-                            if (nb.isEnd()) {
-                                succ.add(nb);
-                            } else {
-                                succ.addAll(nb.getSuccessors(cs + nb.bestPlay().score()));
-                            }
-                        }
-                    }
-                }
-            } succSet = true;
+            successors(cs).forEach(succ::add);
+            succSet = true;
         } return succ;
     }
 
+    /**
+     * the successors of this board, but no more than limit of them, so the memory they take stays bounded. Nothing is
+     * cached.
+     *
+     * @param cs    current score
+     * @param limit most successors to make
+     * @return an arraylist of the first successors of this board. if it holds limit of them, there may be more:
+     * finalScores(cs).count() counts them without keeping them
+     */
+    public ArrayList<Board> getSuccessors(int cs, int limit) {
+        return successors(cs).limit(limit).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * the successors of this board, made one at a time as the stream is consumed. Nothing is cached, so the memory
+     * used does not grow with the number of successors; the time still does.
+     *
+     * @param cs current score
+     * @return a sequential stream of the end-of-game boards that can come out of this board
+     */
+    public Stream<Board> successors(int cs) {
+        Successors walk = new Successors(GameState.withScore(getState(), cs));
+        return StreamSupport.longStream(walk, false).mapToObj(state -> new Board(state, walk.probability()));
+    }
+
+    /**
+     * @param cs current score
+     * @return a sequential stream of the packed states (see GameState) of the successors of this board
+     */
+    public LongStream endStates(int cs) {
+        return StreamSupport.longStream(new Successors(GameState.withScore(getState(), cs)), false);
+    }
+
+    /**
+     * the scores of the successors of this board, e.g. to find the highest with max() or to count them with count().
+     *
+     * @param cs current score
+     * @return a sequential stream of the final score of each successor of this board, with its last hand
+     */
+    public IntStream finalScores(int cs) {
+        return endStates(cs).mapToInt(GameState::score);
+    }
+
+    /**
+     * @return the packed state of this board (see GameState)
+     */
+    public long getState() {
+        int undealt = 0, board = 0;
+        for (cardModel cm : deck.getUndealt())
+            undealt |= 1 << GameState.id(cm);
+        for (cardModel cm : cob)
+            board |= 1 << GameState.id(cm);
+        return GameState.of(undealt, board, currentscore);
+    }
+
     /**
      * is this a "final" successor? Final is defined as the deck being empty.
      *
@@ -132,10 +184,7 @@ public class Board {
     public void deal(Card... cv) {
         for (Card c : cv) {
             cardModel cm = deck.getCard(c);
-            if (c instanceof cardView)
-                cm.deal((cardView) c);
-            else
-                cm.deal(null);
+            deck.deal(cm, (c instanceof CardListener) ? (CardListener) c : null);
             cob.add(cm);
         }
     }
@@ -147,6 +196,13 @@ public class Board {
         return cob.size() == 5;
     }
 
+    /**
+     * @return the probability of reaching this board, if it is a successor of another one; 1 otherwise
+     */
+    public double getProbability() {
+        return probability;
+    }
+
     /**
      * @return the current score of this game
      */
@@ -155,41 +211,50 @@ public class Board {
     }
 
     /**
+     * the best play is the highest scoring hand whose score covers its cost, i.e. the sum of the ranks of its cards. If
+     * there is no such hand, it is the removal of the lowest ranked card. Only the 10 sets of three cards on the board
+     * are checked, keeping the best one so far, and the Play that is returned is looked up rather than made. The
+     * weights of the ranks are kept up to date by the Deck as cards are dealt and discarded. The cards are checked in
+     * ascending order of id, like in bestPlay(long), so ties are broken the same way: the first hand of the highest
+     * score, or the removal of the card with the lowest id among the lowest ranked ones.
+     *
      * @return the best play for this board and deck configuration
      */
     public Play bestPlay() {
         if (hiPlay == null) {
-            rankCards();
-            ArrayList<Play> vp = getValidPlays();
-            if (vp.size() == 0) {
-                cob.sort((o1, o2) -> Math.round(o1.getRank() * 100 - o2.getRank() * 100));
-                hiPlay = new Play(cob.get(0));
-            } else {
-                vp.sort((o2, o1) -> (o1.score() - o2.score()));
-                hiPlay = vp.get(0);
-            }
+            int board = 0;
+            for (int i = 0; i < cob.size(); i++)
+                board |= 1 << cob.get(i).id();
+            long costs = 0;
+            int lowest = 0;
+            float lowrank = Float.MAX_VALUE;
+            for (int x = board, i = 0; x != 0; x &= x - 1, i += COST_BITS) {
+                float rank = deck.getRank(cardModel.of(Integer.numberOfTrailingZeros(x)));
+                costs |= (long) rank << i;
+                if (rank < lowrank) {
+                    lowrank = rank;
+                    lowest = x & -x;
+                }
+            } hiPlay = Play.of(bestPlay(board, costs, lowest));
         } return hiPlay;
     }
 
     /**
-     * @return a list of all valid plays
+     * @return a list of all valid plays, one for each set of three cards on the board
      */
-    private ArrayList<Play> getValidPlays() {
+    ArrayList<Play> getValidPlays() {
         ArrayList<Play> validplays = new ArrayList<>();
-        ArrayList<cardModel> r1 = new ArrayList<>(cob);
-        for (int x = 0; x < r1.size(); x++) {
-            for (int y = 0; y < r1.size(); y++) {
-                if (y != x) {
-                    for (int z = 0; z < r1.size(); z++) {
-                        if (z != y) {
-                            cardModel c1 = cob.get(x);
-                            cardModel c2 = cob.get(y);
-                            cardModel c3 = cob.get(z);
-                            Play newp = new Play(c1, c2, c3);
-                            if (newp.isValid())
-                                validplays.add(newp);
-                        }
-                    }
+        for (int x = 0; x < cob.size(); x++) {
+            for (int y = x + 1; y < cob.size(); y++) {
+                for (int z = y + 1; z < cob.size(); z++) {
+                    cardModel c1 = cob.get(x);
+                    cardModel c2 = cob.get(y);
+                    cardModel c3 = cob.get(z);
+                    if (PlayTable.score(GameState.id(c1), GameState.id(c2), GameState.id(c3)) == 0)
+                        continue;
+                    Play newp = Play.of(c1, c2, c3);
+                    if (newp.isValid(deck))
+                        validplays.add(newp);
                 }
             }
         } return validplays;
@@ -210,32 +275,93 @@ public class Board {
     }
 
     /**
-     * rank all cards based on the current deck and board configuration
+     * the best play for a packed game state. this makes the same choice as bestPlay(), ties included: the highest
+     * scoring hand whose score covers its cost, or the removal of the lowest ranked card if there is no such hand.
+     * The board is walked as a bitmask and each rank is computed once, so nothing is allocated.
+     *
+     * @param state packed game state
+     * @return bitmask of the cards in the best play. a single card means a removal
      */
-    private void rankCards() {
-        for (cardModel c : cob) {
-            float rank = 0.0f;
-            HashSet<Play> vp = deck.getPlays(c);
-            int numPlays = vp.size();
-            for (Play pm : vp) {
-                float coeff = (float) numCardsOnBoard(pm) / 3;
-                rank += pm.score() * coeff;
+    public static int bestPlay(long state) {
+        int board = GameState.board(state), discarded = GameState.discarded(state);
+        long costs = 0;
+        int lowest = 0;
+        float lowrank = Float.MAX_VALUE;
+        for (int x = board, i = 0; x != 0; x &= x - 1, i += COST_BITS) {
+            float rank = rank(Integer.numberOfTrailingZeros(x), board, discarded);
+            costs |= (long) rank << i;
+            if (rank < lowrank) {
+                lowrank = rank;
+                lowest = x & -x;
             }
-            rank /= numPlays * 3;
-            c.setRank(rank);
-        }
+        } return bestPlay(board, costs, lowest);
+    }
+
+    /**
+     * the highest scoring hand on a board whose score covers its cost. the hands are checked in ascending order of the
+     * ids of their cards, and the first one of the highest score is kept.
+     *
+     * @param board  bitmask of the cards on the board
+     * @param costs  cost of each card on the board, i.e. its rank rounded down, in ascending order of id: COST_BITS
+     *               bits each, starting from the lowest ones
+     * @param lowest bitmask of the lowest ranked card
+     * @return bitmask of the cards of that hand, or lowest if there is no such hand
+     */
+    private static int bestPlay(int board, long costs, int lowest) {
+        int best = 0, hiscore = 0;
+        for (int x = board, i = 0; x != 0; x &= x - 1, i += COST_BITS) {
+            int cx = x & -x;
+            for (int y = x & (x - 1), j = i + COST_BITS; y != 0; y &= y - 1, j += COST_BITS) {
+                int cy = y & -y;
+                for (int z = y & (y - 1), k = j + COST_BITS; z != 0; z &= z - 1, k += COST_BITS) {
+                    int hand = cx | cy | (z & -z);
+                    int score = PlayTable.scoreOf(hand);
+                    if ((score > hiscore) && (score >= cost(costs, i) + cost(costs, j) + cost(costs, k))) {
+                        hiscore = score;
+                        best = hand;
+                    }
+                }
+            }
+        } return (best != 0) ? best : lowest;
+    }
+
+    /**
+     * @param costs costs packed by bestPlay
+     * @param shift position of the cost of a card
+     * @return the cost of that card
+     */
+    private static int cost(long costs, int shift) {
+        return (int) (costs >>> shift) & ((1 << COST_BITS) - 1);
+    }
+
+    /**
+     * rank a card: the average score of the plays that include it and can still be made, where each play is weighted
+     * by how many of its cards are already on the board.
+     *
+     * @param card      id of the card to rank
+     * @param board     bitmask of the cards on the board
+     * @param discarded bitmask of the cards that have been discarded
+     * @return the rank of that card
+     */
+    private static float rank(int card, int board, int discarded) {
+        int weight = 0, live = 0;
+        for (int id : PlayTable.plays(card)) {
+            int cards = PlayTable.cards(id);
+            if ((cards & discarded) == 0) {
+                weight += PlayTable.score(id) * Integer.bitCount(cards & board);
+                live++;
+            }
+        } return rank(weight, live);
     }
 
     /**
-     * @param pm play to check
-     * @return number of cards that are in that play that are also on the current game board
+     * @param weight sum over the plays of a card that can still be made of the score of the play times the number of
+     *               its cards on the board
+     * @param live   number of plays of that card that can still be made
+     * @return the rank of that card
      */
-    private int numCardsOnBoard(Play pm) {
-        int tot = 0;
-        for (cardModel c : pm.cards())
-            if (c.getLoc().equals(location.ONBOARD))
-                tot += 1;
-        return tot;
+    static float rank(int weight, int live) {
+        return (live == 0) ? 0.0f : (float) weight / (9 * live);
     }
 
     @Override
@@ -0,0 +1,29 @@
+package model;
+
+/**
+ * Something that shows a card that was dealt to the board, e.g. a cardView. The model only tells it what happens to
+ * its card, so the model itself doesn't depend on any view.
+ */
+public interface CardListener {
+
+    /**
+     * the card was taken off the board
+     */
+    void reset();
+
+    /**
+     * the card is suggested to be used in a play
+     */
+    void suggestPlay();
+
+    /**
+     * the card is suggested to be removed from the board
+     */
+    void suggestRemove();
+
+    /**
+     * the card is no longer suggested for anything, e.g. because a better play was found
+     */
+    void clearSuggestion();
+
+}
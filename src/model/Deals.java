@@ -0,0 +1,86 @@
+package model;
+
+/**
+ * The ways of dealing cards out of the deck. The order in which cards are dealt doesn't matter, so a deal is just the
+ * set of cards that is dealt, as a bitmask like the sets of cards of GameState, and every deal of the same number of
+ * cards out of the same deck is equally likely. The deals are enumerated in a fixed order without allocating:
+ *
+ * <pre>
+ * for (int deal = Deals.first(from, count); deal &gt;= 0; deal = Deals.next(from, deal))
+ *     ...
+ * </pre>
+ */
+public final class Deals {
+
+    /**
+     * only static methods
+     */
+    private Deals() {
+    }
+
+    /**
+     * @param from  bitmask of the cards that can be dealt
+     * @param count number of cards to deal
+     * @return the first deal of count cards out of from, or -1 if from has fewer than count cards
+     */
+    public static int first(int from, int count) {
+        if (Integer.bitCount(from) < count)
+            return -1;
+        int deal = 0;
+        for (int i = 0; i < count; i++, from &= from - 1)
+            deal |= from & -from;
+        return deal;
+    }
+
+    /**
+     * the deal after another one: the lowest card of the deal that can move up to the next card of from does so, and
+     * the cards of the deal below it go back to the lowest cards of from.
+     *
+     * @param from bitmask of the cards that can be dealt
+     * @param deal a deal out of from
+     * @return the next deal of as many cards out of from, or -1 if that was the last one
+     */
+    public static int next(int from, int deal) {
+        int below = 0;
+        for (int d = deal; d != 0; d &= d - 1) {
+            int card = d & -d;
+            int up = from & -(card << 1);
+            up &= -up;
+            if ((up != 0) && ((deal & up) == 0))
+                return (deal & ~below & ~card) | up | first(from, Integer.bitCount(below));
+            below |= card;
+        } return -1;
+    }
+
+    /**
+     * @param from  bitmask of the cards that can be dealt
+     * @param count number of cards to deal
+     * @return the number of different deals of count cards out of from
+     */
+    public static long count(int from, int count) {
+        return combinations(Integer.bitCount(from), count);
+    }
+
+    /**
+     * @param from  bitmask of the cards that can be dealt
+     * @param count number of cards to deal
+     * @return the probability of each single deal of count cards out of from
+     */
+    public static double probability(int from, int count) {
+        return 1.0 / count(from, count);
+    }
+
+    /**
+     * @param n number of cards to choose from
+     * @param k number of cards chosen
+     * @return the number of ways to choose k cards out of n, 0 if k &gt; n
+     */
+    public static long combinations(int n, int k) {
+        if ((k < 0) || (k > n))
+            return 0;
+        long c = 1;
+        for (int i = 1; i <= k; i++)
+            c = c * (n - k + i) / i;
+        return c;
+    }
+}
@@ -10,44 +10,206 @@ import java.util.*;
 public class Deck {
 
     /**
-     * HashMap containing the ArrayLists of cards for each color. That is, there is a list of red cards, a list of
-     * blue cards, etc...
+     * bitmask of the cards on the board
      */
-    private HashMap<color, ArrayList<cardModel>> deck;
+    private int board = 0;
 
     /**
-     * make a new deck. initialize all cards.
+     * bitmask of the cards that have been discarded
+     */
+    private int discarded = 0;
+
+    /**
+     * for each card, the sum over the plays that include it and can still be made of the score of the play times the
+     * number of its cards on the board. kept up to date as cards move, see moved(int).
+     */
+    private int[] weights = new int[GameState.CARDS];
+
+    /**
+     * for each card, the number of plays that include it and can still be made
+     */
+    private int[] live = new int[GameState.CARDS];
+
+    /**
+     * for each card on the board, the view that shows it, null if there is none
+     */
+    private CardListener[] listeners = new CardListener[GameState.CARDS];
+
+    /**
+     * make a new deck, with no card dealt yet.
      */
     public Deck() {
-        deck = new HashMap<>();
-        for (color c : color.values()) {
-            ArrayList<cardModel> l = new ArrayList<cardModel>() {{
-                for (int i=1; i < 9; i++)
-                    add(new cardModel(i, c));
-            }};
-            deck.put(c, l);
-        }
+        for (int id = 0; id < GameState.CARDS; id++)
+            live[id] = PlayTable.plays(id).length;
     }
 
     /**
-     * get a specific card from the deck. since this uses the generic Card, it can be a cardView or a cardModel from
-     * another deck
+     * make a deck from a packed game state (see GameState). the cards are dealt and discarded as the state describes.
+     *
+     * @param state packed game state
+     */
+    Deck(long state) {
+        this();
+        for (int id = 0; id < GameState.CARDS; id++)
+            if ((GameState.board(state) & (1 << id)) != 0)
+                moved(id, location.ONBOARD);
+            else if ((GameState.discarded(state) & (1 << id)) != 0)
+                moved(id, location.DISCARDED);
+    }
+
+    /**
+     * get a specific card. since this uses the generic Card, it can be a cardView as well as a cardModel
      *
      * @param c card to retrieve
-     * @return the desired card from the deck
+     * @return the card model of that card
      */
     cardModel getCard(Card c) {
-        return deck.get(c.color()).get(c.number()-1);
+        return cardModel.of(c);
+    }
+
+    /**
+     * @param id id of the card to retrieve (see GameState.id(Card))
+     * @return the card with that id
+     */
+    cardModel getCard(int id) {
+        return cardModel.of(id);
+    }
+
+    /**
+     * @param loc a location
+     * @return bitmask of the ids of all cards at that location
+     */
+    int getMask(location loc) {
+        if (loc == location.ONBOARD)
+            return board;
+        else if (loc == location.DISCARDED)
+            return discarded;
+        return GameState.ALL & ~(board | discarded);
+    }
+
+    /**
+     * @param c a card
+     * @return where that card is in this game
+     */
+    location getLoc(cardModel c) {
+        if ((board & (1 << c.id())) != 0)
+            return location.ONBOARD;
+        else if ((discarded & (1 << c.id())) != 0)
+            return location.DISCARDED;
+        return location.NOTDEALT;
+    }
+
+    /**
+     * @param c a card
+     * @return the rank of that card in this game, see Board.rank
+     */
+    float getRank(cardModel c) {
+        return Board.rank(weights[c.id()], live[c.id()]);
+    }
+
+    /**
+     * deal a card to the board
+     *
+     * @param c  the card
+     * @param cv view that shows the card, or null
+     */
+    void deal(cardModel c, CardListener cv) {
+        listeners[c.id()] = cv;
+        moved(c.id(), location.ONBOARD);
+    }
+
+    /**
+     * discard a card, and reset the view that showed it
+     *
+     * @param c the card
+     */
+    public void discard(Card c) {
+        int id = GameState.id(c);
+        moved(id, location.DISCARDED);
+        if (listeners[id] != null)
+            listeners[id].reset();
+        listeners[id] = null;
+    }
+
+    /**
+     * suggest a play on a card
+     *
+     * @param c the card
+     */
+    public void suggestPlay(Card c) {
+        CardListener cv = listeners[GameState.id(c)];
+        if (cv != null)
+            cv.suggestPlay();
+    }
+
+    /**
+     * suggest a removal on a card
+     *
+     * @param c the card
+     */
+    public void suggestRemove(Card c) {
+        CardListener cv = listeners[GameState.id(c)];
+        if (cv != null)
+            cv.suggestRemove();
+    }
+
+    /**
+     * take back any suggestion on a card
+     *
+     * @param c the card
+     */
+    public void clearSuggestion(Card c) {
+        CardListener cv = listeners[GameState.id(c)];
+        if (cv != null)
+            cv.clearSuggestion();
+    }
+
+    /**
+     * called whenever a card is dealt or discarded. Only the ranks of the cards that share a play with it can change,
+     * so only those are updated: the plays of the card are taken out of the weights as they were before the move,
+     * and put back in as they are after it.
+     *
+     * @param id  id of the card that moved
+     * @param loc where it moved to
+     */
+    private void moved(int id, location loc) {
+        count(id, -1);
+        board &= ~(1 << id);
+        discarded &= ~(1 << id);
+        if (loc == location.ONBOARD)
+            board |= 1 << id;
+        else if (loc == location.DISCARDED)
+            discarded |= 1 << id;
+        count(id, 1);
     }
 
     /**
-     * @return the deck
+     * add the plays of a card that can still be made to the ranks of their cards, or take them out
+     *
+     * @param card id of the card
+     * @param sign 1 to add the plays, -1 to take them out
+     */
+    private void count(int card, int sign) {
+        for (int id : PlayTable.plays(card)) {
+            int cards = PlayTable.cards(id);
+            if ((cards & discarded) == 0) {
+                int weight = sign * PlayTable.score(id) * Integer.bitCount(cards & board);
+                for (int c = cards; c != 0; c &= c - 1) {
+                    weights[Integer.numberOfTrailingZeros(c)] += weight;
+                    live[Integer.numberOfTrailingZeros(c)] += sign;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return every card of the deck, wherever it is
      */
     ArrayList<cardModel> getDeck() {
-        ArrayList<cardModel> remaining = new ArrayList<>();
-        for (ArrayList<cardModel> col : deck.values())
-            remaining.addAll(col);
-        return remaining;
+        ArrayList<cardModel> all = new ArrayList<>();
+        for (int id = 0; id < GameState.CARDS; id++)
+            all.add(cardModel.of(id));
+        return all;
     }
 
     /**
@@ -55,44 +217,33 @@ public class Deck {
      */
     public ArrayList<cardModel> getUndealt() {
         ArrayList<cardModel> remaining = new ArrayList<>();
-        for (ArrayList<cardModel> col : deck.values())
-            for (cardModel cm : col)
-                if (cm.getLoc().equals(location.NOTDEALT))
-                    remaining.add(cm);
+        for (int cards = getMask(location.NOTDEALT); cards != 0; cards &= cards - 1)
+            remaining.add(cardModel.of(Integer.numberOfTrailingZeros(cards)));
         return remaining;
     }
 
     /**
      * @param c card in all plays
-     * @return a HashSet of all possible plays that include card c
+     * @return the ids of all possible plays that include card c (see Play.byId)
      */
-    HashSet<Play> getPlays(cardModel c) {
-        HashSet<Play> allp = new HashSet<>();
-        ArrayList<cardModel> deck = getDeck();
-
-        for (cardModel dc : getDeck())
-            if (!dc.getLoc().equals(location.DISCARDED))
-                deck.add(dc);
-
-        for (cardModel c1 : deck) {
-            for (cardModel c2 : deck) {
-                Play pm = new Play(c, c1, c2);
-                if ((pm.score() != 0) && (pm.score() != -1))
-                    allp.add(pm);
-            }
-        } return allp;
+    BitSet getPlays(cardModel c) {
+        BitSet allp = new BitSet(Play.COUNT);
+        for (int id : PlayTable.plays(c.id()))
+            if ((PlayTable.cards(id) & discarded) == 0)
+                allp.set(id);
+        return allp;
     }
 
     /**
-     * @return a deep copy of this deck, including copies of all the cards and their states.
+     * @return a copy of this deck, with the cards where they are in this one. the ranks are copied as they are
+     * rather than worked out again. the views are not copied: the cards of the copy have none.
      */
     Deck copy() {
         Deck nDeck = new Deck();
-        for (cardModel cm : getDeck())
-            if (cm.getLoc().equals(location.ONBOARD))
-                nDeck.getCard(cm).deal(null);
-            else if (cm.getLoc().equals(location.DISCARDED))
-                nDeck.getCard(cm).discard();
+        nDeck.board = board;
+        nDeck.discarded = discarded;
+        nDeck.weights = weights.clone();
+        nDeck.live = live.clone();
         return nDeck;
     }
 }
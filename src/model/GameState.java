@@ -0,0 +1,244 @@
+package model;
+
+/**
+ * Compact, immutable representation of a game used by the successor system. A whole game state is packed into a
+ * single long, so the search can branch on states without copying any Deck or cardModel objects:
+ *
+ * <pre>
+ *   bits  0-23 : cards that have not been dealt yet
+ *   bits 24-47 : cards that are on the board
+ *   bits 48-63 : current score
+ * </pre>
+ *
+ * Any card that is in neither of the two sets has been discarded. Cards are identified by their id (see id(Card)),
+ * so a set of cards is simply an int bitmask of ids.
+ */
+public final class GameState {
+
+    /**
+     * number of cards in a deck
+     */
+    public static final int CARDS = 24;
+
+    /**
+     * number of cards of each color
+     */
+    public static final int NUMBERS = 8;
+
+    /**
+     * number of cards on a complete board
+     */
+    public static final int BOARD = 5;
+
+    /**
+     * bitmask containing every card of the deck
+     */
+    public static final int ALL = (1 << CARDS) - 1;
+
+    /**
+     * mask of the card-location part of a packed state, i.e. everything but the score
+     */
+    private static final long LOCATIONS = (1L << (2 * CARDS)) - 1;
+
+    /**
+     * mask of the locations of the cards of the first color, i.e. its undealt and its board bits
+     */
+    private static final long COLOR = ((1L << NUMBERS) - 1) | (((1L << NUMBERS) - 1) << CARDS);
+
+    /**
+     * states are only ever handled as packed longs
+     */
+    private GameState() {
+    }
+
+    /**
+     * the id of a card is the ordinal of its color times 8, plus its number minus one. This gives a unique id in
+     * [0, 24) for each possible card in a deck.
+     *
+     * @param c card to identify
+     * @return id of that card
+     */
+    public static int id(Card c) {
+        return c.color().ordinal() * NUMBERS + c.number() - 1;
+    }
+
+    /**
+     * @param id id of a card
+     * @return the number of that card
+     */
+    public static int number(int id) {
+        return id % NUMBERS + 1;
+    }
+
+    /**
+     * @param id id of a card
+     * @return the ordinal of the color of that card
+     */
+    public static int color(int id) {
+        return id / NUMBERS;
+    }
+
+    /**
+     * pack a game state
+     *
+     * @param undealt bitmask of the cards that have not been dealt
+     * @param board   bitmask of the cards on the board
+     * @param score   current score
+     * @return the packed state
+     */
+    public static long of(int undealt, int board, int score) {
+        return ((long) score << (2 * CARDS)) | ((long) board << CARDS) | undealt;
+    }
+
+    /**
+     * @param state packed state
+     * @return bitmask of the cards that have not been dealt
+     */
+    public static int undealt(long state) {
+        return (int) state & ALL;
+    }
+
+    /**
+     * @param state packed state
+     * @return bitmask of the cards on the board
+     */
+    public static int board(long state) {
+        return (int) (state >>> CARDS) & ALL;
+    }
+
+    /**
+     * @param state packed state
+     * @return bitmask of the cards that have been discarded
+     */
+    public static int discarded(long state) {
+        return ~(undealt(state) | board(state)) & ALL;
+    }
+
+    /**
+     * @param state packed state
+     * @return the current score
+     */
+    public static int score(long state) {
+        return (int) (state >>> (2 * CARDS));
+    }
+
+    /**
+     * the key of a state only describes where every card is, and not the score. Two states with the same key have
+     * the same future, no matter how they were reached.
+     *
+     * @param state packed state
+     * @return the card-location part of the state
+     */
+    public static long key(long state) {
+        return state & LOCATIONS;
+    }
+
+    /**
+     * the three colors are interchangeable under every scoring rule, so states that only differ in which color is
+     * which have the same future. The canonical key relabels the colors in order of where their cards are, so all 6
+     * relabelings of a state share one key, and caches keyed by it find a position again with its colors swapped.
+     *
+     * @param state packed state
+     * @return the canonical card-location part of the state
+     */
+    public static long canonical(long state) {
+        long a = state & COLOR;
+        long b = (state >>> NUMBERS) & COLOR;
+        long c = (state >>> (2 * NUMBERS)) & COLOR;
+        long t;
+        if (a > b) {
+            t = a; a = b; b = t;
+        }
+        if (b > c) {
+            t = b; b = c; c = t;
+        }
+        if (a > b) {
+            t = a; a = b; b = t;
+        } return a | (b << NUMBERS) | (c << (2 * NUMBERS));
+    }
+
+    /**
+     * a state can only lead to states where no card has come back into the deck, and no discarded card has come back.
+     *
+     * @param from packed state, or the key of one
+     * @param to   packed state, or the key of one
+     * @return true iff the card locations of to can be reached by playing on from
+     */
+    public static boolean isReachable(long from, long to) {
+        return ((undealt(to) & ~undealt(from)) == 0) && ((discarded(from) & ~discarded(to)) == 0);
+    }
+
+    /**
+     * like isReachable, for a key that may have had its colors relabeled, e.g. a canonical one
+     *
+     * @param from packed state, or the key of one
+     * @param key  key of a state, up to the colors
+     * @return true iff some relabeling of the colors of key can be reached by playing on from
+     */
+    public static boolean isReachableRelabeled(long from, long key) {
+        long a = key & COLOR;
+        long b = (key >>> NUMBERS) & COLOR;
+        long c = (key >>> (2 * NUMBERS)) & COLOR;
+        return isReachable(from, a | (b << NUMBERS) | (c << (2 * NUMBERS)))
+                || isReachable(from, a | (c << NUMBERS) | (b << (2 * NUMBERS)))
+                || isReachable(from, b | (a << NUMBERS) | (c << (2 * NUMBERS)))
+                || isReachable(from, b | (c << NUMBERS) | (a << (2 * NUMBERS)))
+                || isReachable(from, c | (a << NUMBERS) | (b << (2 * NUMBERS)))
+                || isReachable(from, c | (b << NUMBERS) | (a << (2 * NUMBERS)));
+    }
+
+    /**
+     * @param state packed state
+     * @param score new score
+     * @return the same state with a different score
+     */
+    public static long withScore(long state, int score) {
+        return key(state) | ((long) score << (2 * CARDS));
+    }
+
+    /**
+     * make a play: the cards are taken off the board and discarded, and the points of the play are added to the
+     * score.
+     *
+     * @param state  packed state
+     * @param cards  bitmask of the cards that are played. these must all be on the board
+     * @param points score of the play (0 for a removal)
+     * @return the state after the play
+     */
+    public static long play(long state, int cards, int points) {
+        return (state & ~((long) cards << CARDS)) + ((long) points << (2 * CARDS));
+    }
+
+    /**
+     * deal some cards to the board
+     *
+     * @param state packed state
+     * @param cards bitmask of the cards to deal. these must all be undealt
+     * @return the state after the deal
+     */
+    public static long deal(long state, int cards) {
+        return (state & ~(long) cards) | ((long) cards << CARDS);
+    }
+
+    /**
+     * is this a "final" state? Final is defined as the deck being empty.
+     *
+     * @param state packed state
+     * @return true iff there are no undealt cards left
+     */
+    public static boolean isEnd(long state) {
+        return undealt(state) == 0;
+    }
+
+    /**
+     * @param state packed state
+     * @return String representation of a state, i.e. the cards on the board and the score
+     */
+    public static String toString(long state) {
+        StringBuilder sb = new StringBuilder();
+        for (int cards = board(state); cards != 0; cards &= cards - 1) {
+            int id = Integer.numberOfTrailingZeros(cards);
+            sb.append(model.enums.color.values()[color(id)]).append(" ").append(number(id)).append(" : ");
+        } return sb.append(score(state)).toString();
+    }
+}
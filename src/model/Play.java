@@ -5,37 +5,117 @@ import model.enums.location;
 import java.util.*;
 
 /**
+ * A play: three cards to play as a hand, or one card to remove. Like the cards, plays are made once, when the class is
+ * loaded, and shared: there is one Play for each of the PlayTable.PLAYS sets of three cards, with the same id as in
+ * the PlayTable, followed by one for the removal of each card. Plays can therefore be compared with ==, their id is a
+ * perfect hash, and a set of plays fits in a BitSet of ids.
+ *
  * @author Will Clifford (GitHub: wtc8754)
  */
-public class Play {
+public final class Play {
 
     /**
-     * store all the cards in an arraylist
+     * number of different plays: every hand and every removal
      */
-    private ArrayList<cardModel> cards = new ArrayList<>();
+    public static final int COUNT = PlayTable.PLAYS + GameState.CARDS;
 
     /**
-     * the score value of this cards. If it's not yet set, it will be -1. If it's an invalid cards, it will be 0.
+     * every play, by id
      */
-    private int score = -1;
+    private static final Play[] PLAYS = new Play[COUNT];
+
+    static {
+        for (int id = 0; id < PlayTable.PLAYS; id++)
+            PLAYS[id] = new Play(id, PlayTable.cards(id));
+        for (int card = 0; card < GameState.CARDS; card++)
+            PLAYS[PlayTable.PLAYS + card] = new Play(PlayTable.PLAYS + card, 1 << card);
+    }
+
+    /**
+     * id of this play: the PlayTable id of a hand, or PlayTable.PLAYS plus the id of the card of a removal
+     */
+    private final int id;
+
+    /**
+     * bitmask of the cards of this play
+     */
+    private final int mask;
+
+    /**
+     * the cards of this play, in ascending order of id
+     */
+    private final List<cardModel> cards;
+
+    /**
+     * the score value of this play, looked up in the PlayTable. If it's an invalid hand or a removal, it will be 0.
+     */
+    private final int score;
+
+    /**
+     * is this play a removal or a hand?
+     */
+    private final boolean isRemoval;
+
+    /**
+     * make the play of some cards. only done once per play, see of(int).
+     *
+     * @param id   id of the play
+     * @param mask bitmask of its cards: one card for a removal, three for a hand
+     */
+    private Play(int id, int mask) {
+        this.id = id;
+        this.mask = mask;
+        ArrayList<cardModel> all = new ArrayList<>();
+        for (int c = mask; c != 0; c &= c - 1)
+            all.add(cardModel.of(Integer.numberOfTrailingZeros(c)));
+        this.cards = Collections.unmodifiableList(all);
+        this.isRemoval = all.size() == 1;
+        this.score = isRemoval ? 0 : PlayTable.score(id);
+    }
+
+    /**
+     * @param cards bitmask of cards (see GameState): one card to remove, or three cards to play
+     * @return the play of those cards
+     */
+    public static Play of(int cards) {
+        if (Integer.bitCount(cards) == 1)
+            return PLAYS[PlayTable.PLAYS + Integer.numberOfTrailingZeros(cards)];
+        if (Integer.bitCount(cards) == 3)
+            return PLAYS[PlayTable.id(cards)];
+        throw new IllegalArgumentException("a play has one or three cards");
+    }
+
+    /**
+     * @param all the cards of a play: one card to remove, or three cards to play
+     * @return the play of those cards
+     */
+    static Play of(cardModel... all) {
+        int cards = 0;
+        for (cardModel c : all)
+            cards |= 1 << c.id();
+        return of(cards);
+    }
 
     /**
-     * is this cards a removal or a hand?
+     * @param id id of a play
+     * @return the play with that id
      */
-    private boolean isRemoval = false;
+    public static Play byId(int id) {
+        return PLAYS[id];
+    }
 
     /**
-     * make a new hand
-     * @param all cards in the cards.
+     * @return the id of this play, in [0, COUNT)
      */
-    Play(cardModel... all) {
-        if (all.length == 1) {
-            cards.add(all[0]);
-            this.isRemoval = true;
-        } else if (all.length == 3) {
-            cards.addAll(Arrays.asList(all));
-            cards.sort(Comparator.comparingInt(cardModel::number));
-        }
+    public int id() {
+        return id;
+    }
+
+    /**
+     * @return bitmask of the cards of this play (see GameState)
+     */
+    public int mask() {
+        return mask;
     }
 
     /**
@@ -48,9 +128,9 @@ public class Play {
     /**
      * get the cards of this play.
      *
-     * @return the arraylist of cards in this play.
+     * @return the cards in this play, in ascending order of id. the list can't be modified.
      */
-    public ArrayList<cardModel> cards() {
+    public List<cardModel> cards() {
         return cards;
     }
 
@@ -78,76 +158,27 @@ public class Play {
      6-7-8 any  color = 60 points
      */
     public int score() {
-        if (isRemoval) {
-            return 0;
-        } else if (score == -1) {
-            if (allSameCol() && isRun())
-                score = 40 + (cards.get(0).number()) * 10;
-            else if (allSameNum())
-                score =  10 + (cards.get(0).number()) * 10;
-            else if (isRun())
-                score = (cards.get(0).number()) * 10;
-            else
-                score = 0;
-        } return score;
-    }
-
-    /**
-     * a 'run' is defined as three or more cards that are in ascending or descending order by number. This check is
-     * possible because the cards are sorted by number in the constructor
-     *
-     * @return true iff this play is a run
-     */
-    private boolean isRun() {
-        return ((cards.get(0).number() + 1) == cards.get(1).number() &&
-                (cards.get(0).number() + 2) == cards.get(2).number());
-    }
-
-    /**
-     * @return true iff all the cards in this play are the same number
-     */
-    private boolean allSameNum() {
-        return (allDiffCol() &&
-                cards.get(0).number() == cards.get(1).number() &&
-                cards.get(1).number() == cards.get(2).number());
-    }
-
-    /**
-     * @return true iff all cards in this play are the same color.
-     */
-    private boolean allSameCol() {
-        return (cards.get(0).color() == cards.get(1).color()) &&
-                cards.get(1).color() == cards.get(2).color();
-    }
-
-    /**
-     * @return true iff all cards in this play are different colors.
-     */
-    private boolean allDiffCol() {
-        return  (cards.get(0).color() != cards.get(1).color()) &&
-                (cards.get(1).color() != cards.get(2).color()) &&
-                (cards.get(0).color() != cards.get(2).color());
+        return score;
     }
 
     /**
+     * @param deck deck of the game the play is made in
      * @return 'cost' of this play, i.e. the sum of the rank of the cards
      */
-    private int getCost() {
+    private int getCost(Deck deck) {
         int tot = 0;
-        for (cardModel cm : cards()) {
-            tot += cm.getRank();
+        for (cardModel cm : cards) {
+            tot += deck.getRank(cm);
 
         } return tot;
     }
 
     /**
-     * @return true iff none of the cards are discarded
+     * @param deck deck of the game the play is made in
+     * @return true iff none of the cards are discarded, and the score covers the cost
      */
-    boolean isValid() {
-        for (cardModel c : cards)
-            if (c.getLoc().equals(location.DISCARDED))
-                return false;
-        return score() >= getCost();
+    boolean isValid(Deck deck) {
+        return ((mask & deck.getMask(location.DISCARDED)) == 0) && (score() >= getCost(deck));
     }
 
     /**
@@ -163,26 +194,18 @@ public class Play {
 
     /**
      * @param obj another play to compare to this one.
-     * @return true iff the other play contains the same cards as this one
+     * @return true iff obj is this play. there is only one Play per set of cards
      */
     @Override
     public boolean equals(Object obj) {
-        if (obj instanceof Play) {
-            for (cardModel cm : ( (Play) obj ).cards())
-                if (!cards().contains(cm))
-                    return false;
-            return true;
-        } return false;
+        return obj == this;
     }
 
     /**
-     * @return the unique hashcode of this play
+     * @return the id of this play, which is unique
      */
     @Override
     public int hashCode() {
-        int code = 0;
-        for (cardModel c : cards) {
-            code *= c.hashCode();
-        } return code;
+        return id;
     }
 }
@@ -0,0 +1,177 @@
+package model;
+
+/**
+ * Precomputed scores of all 2024 possible plays, i.e. every set of three different cards out of the 24 in a deck.
+ * Each play has a dense id in [0, 2024): for card ids a &lt; b &lt; c it is C(c, 3) + C(b, 2) + a (the combinatorial
+ * number system), so the score of any three cards is a single array lookup.
+ */
+public final class PlayTable {
+
+    /**
+     * number of different plays
+     */
+    public static final int PLAYS = 2024;
+
+    /**
+     * C(n, 2) for every card id n
+     */
+    private static final int[] PAIRS = new int[GameState.CARDS];
+
+    /**
+     * C(n, 3) for every card id n
+     */
+    private static final int[] TRIPLES = new int[GameState.CARDS];
+
+    /**
+     * score of each play, by play id
+     */
+    private static final byte[] SCORES = new byte[PLAYS];
+
+    /**
+     * bitmask of the cards of each play, by play id
+     */
+    private static final int[] CARDS = new int[PLAYS];
+
+    /**
+     * for each card, the ids of all the plays that include it and score any points
+     */
+    private static final int[][] PLAYS_OF = new int[GameState.CARDS][];
+
+    static {
+        for (int n = 0; n < GameState.CARDS; n++) {
+            PAIRS[n] = n * (n - 1) / 2;
+            TRIPLES[n] = n * (n - 1) * (n - 2) / 6;
+        }
+        for (int c = 2; c < GameState.CARDS; c++) {
+            for (int b = 1; b < c; b++) {
+                for (int a = 0; a < b; a++) {
+                    int id = id(a, b, c);
+                    CARDS[id] = (1 << a) | (1 << b) | (1 << c);
+                    SCORES[id] = (byte) rule(a, b, c);
+                }
+            }
+        }
+        for (int card = 0; card < GameState.CARDS; card++) {
+            int count = 0;
+            for (int id = 0; id < PLAYS; id++)
+                if ((SCORES[id] > 0) && ((CARDS[id] & (1 << card)) != 0))
+                    count++;
+            PLAYS_OF[card] = new int[count];
+            for (int id = 0, i = 0; id < PLAYS; id++)
+                if ((SCORES[id] > 0) && ((CARDS[id] & (1 << card)) != 0))
+                    PLAYS_OF[card][i++] = id;
+        }
+    }
+
+    /**
+     * plays are only ever handled by id
+     */
+    private PlayTable() {
+    }
+
+    /**
+     * @param a id of a card
+     * @param b id of another card
+     * @param c id of a third card
+     * @return the id of the play made of these three cards, in any order
+     */
+    public static int id(int a, int b, int c) {
+        int lo = Math.min(a, Math.min(b, c));
+        int hi = Math.max(a, Math.max(b, c));
+        return TRIPLES[hi] + PAIRS[a + b + c - lo - hi] + lo;
+    }
+
+    /**
+     * @param cards bitmask of three cards
+     * @return the id of the play made of these cards
+     */
+    public static int id(int cards) {
+        int a = Integer.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        int b = Integer.numberOfTrailingZeros(cards);
+        return TRIPLES[31 - Integer.numberOfLeadingZeros(cards)] + PAIRS[b] + a;
+    }
+
+    /**
+     * @param id id of a play
+     * @return the score of that play, 0 if it is invalid
+     */
+    public static int score(int id) {
+        return SCORES[id];
+    }
+
+    /**
+     * @param a id of a card
+     * @param b id of another card
+     * @param c id of a third card
+     * @return the score of a play made of these three cards, 0 if it is invalid or uses a card twice
+     */
+    public static int score(int a, int b, int c) {
+        if ((a == b) || (b == c) || (a == c))
+            return 0;
+        return SCORES[id(a, b, c)];
+    }
+
+    /**
+     * @param cards bitmask of three cards
+     * @return the score of a play made of these cards, 0 if it is invalid
+     */
+    public static int scoreOf(int cards) {
+        return SCORES[id(cards)];
+    }
+
+    /**
+     * @param board bitmask of the cards on the board
+     * @return score of the best hand that can be made from these cards, 0 if there is none
+     */
+    public static int bestHand(int board) {
+        int best = 0;
+        for (int x = board; x != 0; x &= x - 1)
+            for (int y = x & (x - 1); y != 0; y &= y - 1)
+                for (int z = y & (y - 1); z != 0; z &= z - 1)
+                    best = Math.max(best, SCORES[id((x & -x) | (y & -y) | (z & -z))]);
+        return best;
+    }
+
+    /**
+     * @param id id of a play
+     * @return bitmask of the cards in that play
+     */
+    public static int cards(int id) {
+        return CARDS[id];
+    }
+
+    /**
+     * the scoring plays of a card. a play is still possible as long as none of its cards are discarded, i.e.
+     * (cards(id) &amp; discarded) == 0. the returned array is shared and must not be modified.
+     *
+     * @param card id of a card
+     * @return the ids of every play that includes that card and scores any points
+     */
+    static int[] plays(int card) {
+        return PLAYS_OF[card];
+    }
+
+    /**
+     * score three different cards. see Play.score() for the table of scores.
+     *
+     * @param a id of the first card
+     * @param b id of the second card
+     * @param c id of the third card
+     * @return the score of a play made of these three cards, 0 if it is invalid
+     */
+    private static int rule(int a, int b, int c) {
+        int na = GameState.number(a), nb = GameState.number(b), nc = GameState.number(c);
+        int lo = Math.min(na, Math.min(nb, nc));
+        int hi = Math.max(na, Math.max(nb, nc));
+        boolean run = (hi == lo + 2) && (na + nb + nc == 3 * lo + 3);
+        int ca = GameState.color(a), cb = GameState.color(b), cc = GameState.color(c);
+        if (run && (ca == cb) && (cb == cc))
+            return 40 + lo * 10;
+        else if ((lo == hi) && (ca != cb) && (cb != cc) && (ca != cc))
+            return 10 + lo * 10;
+        else if (run)
+            return lo * 10;
+        return 0;
+    }
+}
@@ -0,0 +1,116 @@
+package model;
+
+
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+
+/**
+ * Lazy enumeration of the end-of-game successors of a state, in the same order as Board.getSuccessors. The search is
+ * a depth-first walk with an explicit stack: each level of the stack only remembers the state after its play and
+ * which deal comes next, so the memory used stays the same no matter how many successors there are.
+ *
+ * Each deal is a set of cards (see Deals), so a successor is reached only once per path, and it comes with the
+ * probability of that path: the product of the probabilities of its deals. The probabilities of all successors add
+ * up to 1.
+ *
+ * Once the deck is empty the best hand left on the board is still played, so the score of a successor is the final
+ * score of the game, like in the Solver, the PolicyEvaluator and MonteCarlo. Its cards are left on the board.
+ */
+class Successors extends Spliterators.AbstractLongSpliterator {
+
+    /**
+     * the levels of the search that still have deals left
+     */
+    private final ArrayDeque<Level> stack = new ArrayDeque<>();
+
+    /**
+     * probability of the successor that was returned last
+     */
+    private double probability;
+
+    /**
+     * @param state packed game state to find the successors of
+     */
+    Successors(long state) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        stack.push(new Level(state, 1));
+    }
+
+    /**
+     * @return the probability of the successor that was returned last, i.e. of the deals that lead to it
+     */
+    double probability() {
+        return probability;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        while (!stack.isEmpty()) {
+            Level level = stack.peek();
+            long child = level.next();
+            if (child < 0) {
+                stack.pop();
+            } else if (GameState.isEnd(child)) {
+                probability = level.probability;
+                action.accept(GameState.withScore(child,
+                        GameState.score(child) + PlayTable.bestHand(GameState.board(child))));
+                return true;
+            } else {
+                stack.push(new Level(child, level.probability));
+            }
+        } return false;
+    }
+
+    /**
+     * one level of the search: the best play on a state, and the deals after it
+     */
+    private static class Level {
+
+        /**
+         * the state right after the best play
+         */
+        private final long next;
+
+        /**
+         * the cards that can be dealt
+         */
+        private final int from;
+
+        /**
+         * the next deal, or -1 if there are no deals left
+         */
+        private int deal;
+
+        /**
+         * probability of reaching each state after this level: that of this level's state times that of one deal
+         */
+        private final double probability;
+
+        /**
+         * @param state       packed game state to make the best play on
+         * @param probability probability of reaching that state
+         */
+        Level(long state, double probability) {
+            int play = Board.bestPlay(state);
+            boolean hand = Integer.bitCount(play) == 3;
+            next = GameState.play(state, play, hand ? PlayTable.scoreOf(play) : 0);
+            from = GameState.undealt(state);
+            int count = Math.min(Integer.bitCount(play), Integer.bitCount(from));
+            deal = Deals.first(from, count);
+            this.probability = probability * Deals.probability(from, count);
+        }
+
+        /**
+         * @return the state after the next deal, or -1 if there are no deals left
+         */
+        long next() {
+            if (deal < 0)
+                return -1;
+            long child = GameState.deal(next, deal);
+            deal = Deals.next(from, deal);
+            return child;
+        }
+    }
+}
@@ -1,47 +1,69 @@
 package model;
 
 import model.enums.*;
-import view.*;
 
 /**
+ * One of the 24 cards of a deck. There is exactly one cardModel per card, made when the class is loaded and shared by
+ * every deck, board and play, so cards can be compared with == and their id is a perfect hash. A card is immutable:
+ * where it is, its rank and the view that shows it belong to a game, and are kept by the Deck of that game.
+ *
  * @author Will Clifford (GitHub: wtc8754)
  */
-public class cardModel implements Card {
+public final class cardModel implements Card {
 
     /**
-     * color of this card
+     * every card, by id
      */
-    private color color;
+    private static final cardModel[] CARDS = new cardModel[GameState.CARDS];
 
-    /**
-     * the number of this card
-     */
-    private int num;
+    static {
+        for (color c : model.enums.color.values())
+            for (int i = 1; i <= GameState.NUMBERS; i++) {
+                cardModel cm = new cardModel(i, c);
+                CARDS[cm.id] = cm;
+            }
+    }
 
     /**
-     * location of this card (as defined in model.enums.location)
+     * color of this card
      */
-    private location loc;
+    private final color color;
 
     /**
-     * used for the under-the-hood card ranking system. only has a value if the card is on the board.
+     * the number of this card
      */
-    private float rank;
+    private final int num;
 
     /**
-     * cardView associated with this card.
+     * id of this card (see GameState.id(Card))
      */
-    private cardView cv;
+    private final int id;
 
     /**
-     * Create a new instance of a card model. by default, cards are not dealt when created.
+     * Create the card model of a card. only done once per card, see of(int).
      * @param num number of this card
      * @param color color of this card
      */
-    cardModel(int num, color color) {
+    private cardModel(int num, color color) {
         this.num = num;
         this.color = color;
-        this.loc = location.NOTDEALT;
+        this.id = GameState.id(this);
+    }
+
+    /**
+     * @param id id of a card (see GameState.id(Card))
+     * @return the card with that id
+     */
+    public static cardModel of(int id) {
+        return CARDS[id];
+    }
+
+    /**
+     * @param c any card, e.g. a cardView
+     * @return the card model of the same color and number
+     */
+    public static cardModel of(Card c) {
+        return CARDS[GameState.id(c)];
     }
 
     //          GETTERS          //
@@ -51,53 +73,17 @@ public class cardModel implements Card {
     public int number() {
         return num;
     }
-    location getLoc() {
-        return loc;
-    }
-    float getRank() {
-        return rank;
-    }
-
-    //          SETTERS          //
-    void setRank(float rank) {
-        this.rank = rank;
-    }
-    void deal(cardView cv) {
-        this.loc = location.ONBOARD;
-        this.cv = cv;
-    }
-    public void discard() {
-        this.loc = location.DISCARDED;
-        if (cv != null)
-            cv.reset();
-    }
-
-    /**
-     * suggest a play on this card
-     */
-    public void suggestPlay() {
-        if (cv != null)
-            cv.suggestPlay();
-    }
-
-    /**
-     * suggest a removal on this card.
-     */
-    public void suggestRemove() {
-        if (cv != null)
-            cv.suggestRemove();
+    public int id() {
+        return id;
     }
 
     /**
      * @param obj card to compare to this.
-     * @return true iff obj's color and number are the same as this
+     * @return true iff obj is this card. there is only one cardModel per color and number
      */
     @Override
     public boolean equals(Object obj) {
-        if (obj instanceof cardModel) {
-            cardModel cv = (cardModel) obj;
-            return (cv.color() == this.color()) && (this.number() == cv.number());
-        } return false;
+        return obj == this;
     }
 
     /**
@@ -109,17 +95,10 @@ public class cardModel implements Card {
     }
 
     /**
-     * the hashcode of a cardModel is the "number" of its color times 10, plus its number. this gives a unique code
-     * for each possible card in a deck.
-     *
-     * @return unique hashcode for this card
+     * @return the id of this card, which is unique
      */
     @Override
     public int hashCode() {
-        int col = 0;
-        for (int i = 0; i < model.enums.color.values().length ; i++)
-            if (model.enums.color.values()[i].equals(color))
-                col = i;
-        return col * 10 + num;
+        return id;
     }
 }
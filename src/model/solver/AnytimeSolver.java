@@ -0,0 +1,339 @@
+package model.solver;
+
+import model.Deals;
+import model.GameState;
+import model.PlayTable;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+/**
+ * Solver for the highest achievable score that works within a time budget. It searches one play ahead, then two, and
+ * so on. A position where the search stops early only counts as a range: at least the best hand on its board, and at
+ * most Solver.upperBound. Every completed round narrows the range for the whole game, so when the time is up the
+ * last range is returned as a Bound. When the search reaches the end of the deck everywhere, the bound is exact.
+ *
+ * Exact values go into the same TranspositionTable as the Solver's, so the two can share what they learn. The ranges
+ * of positions that were cut off are kept in a small cache of this solver. An AnytimeSolver must only be used by one
+ * thread at a time.
+ */
+public class AnytimeSolver {
+
+    /**
+     * default size of the cache of ranges, as log2 of the number of entries (3.25 MB)
+     */
+    public static final int DEFAULT_CACHE_BITS = 18;
+
+    /**
+     * memory taken by one entry of the cache of ranges: a key, a range and a depth
+     */
+    private static final int ENTRY_BYTES = 8 + 4 + 1;
+
+    /**
+     * number of positions searched between two checks of the clock, minus one
+     */
+    private static final int CHECK_INTERVAL = 0x3FF;
+
+    /**
+     * exact values of positions
+     */
+    private final TranspositionTable table;
+
+    /**
+     * keys of the positions in the cache of ranges, -1 for an empty slot
+     */
+    private final long[] keys;
+
+    /**
+     * range of each cached position, packed like the results of search()
+     */
+    private final int[] ranges;
+
+    /**
+     * number of plays that were searched ahead for each cached range
+     */
+    private final byte[] depths;
+
+    /**
+     * the hash of a key is shifted right by this much to find its slot in the cache
+     */
+    private final int shift;
+
+    /**
+     * mask of the slots of the cache
+     */
+    private final int mask;
+
+    /**
+     * System.nanoTime() at which the current solve has to stop
+     */
+    private long deadline;
+
+    /**
+     * number of positions searched so far
+     */
+    private int nodes = 0;
+
+    /**
+     * where the work of each solve is counted, null if it isn't
+     */
+    private final SolverMetrics metrics;
+
+    /**
+     * positions expanded in the current solve, by depth
+     */
+    private final long[] expanded = new long[SolverMetrics.DEPTHS];
+
+    /**
+     * lookups in the current solve that found a known value or range
+     */
+    private long hits = 0;
+
+    /**
+     * lookups in the current solve that had to search the position
+     */
+    private long misses = 0;
+
+    /**
+     * positions the current solve stored in the table or the cache of ranges
+     */
+    private long stored = 0;
+
+    /**
+     * number of plays searched ahead in the current round
+     */
+    private int round = 0;
+
+    /**
+     * make a solver with a table of the default size
+     */
+    public AnytimeSolver() {
+        this(new TranspositionTable(Solver.DEFAULT_TABLE_BITS));
+    }
+
+    /**
+     * @param table transposition table for exact values. it can be shared with a Solver
+     */
+    public AnytimeSolver(TranspositionTable table) {
+        this(table, null);
+    }
+
+    /**
+     * @param table   transposition table for exact values. it can be shared with a Solver
+     * @param metrics where the work of each solve is counted, or null
+     */
+    public AnytimeSolver(TranspositionTable table, SolverMetrics metrics) {
+        this(table, DEFAULT_CACHE_BITS, metrics);
+    }
+
+    /**
+     * @param table     transposition table for exact values. it can be shared with a Solver
+     * @param cacheBits size of the cache of ranges, as log2 of the number of entries (see bitsFor)
+     * @param metrics   where the work of each solve is counted, or null
+     */
+    public AnytimeSolver(TranspositionTable table, int cacheBits, SolverMetrics metrics) {
+        this.table = table;
+        this.metrics = metrics;
+        keys = new long[1 << cacheBits];
+        ranges = new int[1 << cacheBits];
+        depths = new byte[1 << cacheBits];
+        shift = 64 - cacheBits;
+        mask = keys.length - 1;
+        Arrays.fill(keys, -1L);
+    }
+
+    /**
+     * @param bytes most memory the cache of ranges may take
+     * @param max   highest number of bits to return
+     * @return log2 of the number of entries of the largest cache that fits in that memory, but at most max
+     */
+    public static int bitsFor(long bytes, int max) {
+        return Math.max(0, Math.min(max, 63 - Long.numberOfLeadingZeros(Math.max(1, bytes / ENTRY_BYTES))));
+    }
+
+    /**
+     * forget the cached ranges of the positions whose keys don't pass a test, e.g. those that can no longer be reached
+     *
+     * @param keep test of the canonical key of each cached position
+     * @return number of ranges forgotten
+     */
+    public int retain(LongPredicate keep) {
+        int removed = 0;
+        for (int i = 0; i < keys.length; i++)
+            if ((keys[i] != -1L) && !keep.test(keys[i])) {
+                keys[i] = -1L;
+                removed++;
+            }
+        return removed;
+    }
+
+    /**
+     * search deeper and deeper until the highest achievable score is known exactly or the time is up.
+     *
+     * @param state  packed game state (see GameState)
+     * @param budget time to search for, in milliseconds
+     * @return the best bound on the highest achievable final score that was proven in time
+     * @throws CancellationException if the thread was interrupted
+     */
+    public Bound solve(long state, long budget) {
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget);
+        long key = GameState.key(state);
+        int range = frontier(key);
+        int depth = 0;
+        try {
+            while (lower(range) != upper(range)) {
+                round = depth + 1;
+                range = search(key, round);
+                depth++;
+            }
+        } catch (OutOfTime ignored) {
+            // the last completed round stands
+        } finally {
+            if (metrics != null) {
+                metrics.add(expanded, hits, misses, stored, round);
+                Arrays.fill(expanded, 0);
+                hits = misses = stored = 0;
+            }
+        }
+        int score = GameState.score(state);
+        return new Bound(score + lower(range), score + upper(range), depth);
+    }
+
+    /**
+     * @param state card locations of a state, with a score of 0
+     * @param depth number of plays to search ahead
+     * @return the range of the highest score that can still be added from that state
+     */
+    private int search(long state, int depth) {
+        if (GameState.isEnd(state)) {
+            int v = PlayTable.bestHand(GameState.board(state));
+            return pack(v, v);
+        }
+        long key = GameState.canonical(state);
+        int exact = table.get(key);
+        if (exact >= 0) {
+            hits++;
+            return pack(exact, exact);
+        }
+        if (depth == 0)
+            return frontier(state);
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift) & mask;
+        if ((keys[slot] == key) && (depths[slot] >= depth)) {
+            hits++;
+            return ranges[slot];
+        }
+        if ((++nodes & CHECK_INTERVAL) == 0) {
+            if (Thread.currentThread().isInterrupted())
+                throw new CancellationException();
+            if (System.nanoTime() > deadline)
+                throw new OutOfTime();
+        }
+        misses++;
+        expanded[Math.min(round - depth, SolverMetrics.DEPTHS - 1)]++;
+
+        int limit = Solver.upperBound(state);
+        int lo = 0, hi = 0;
+        int board = GameState.board(state);
+        for (int x = board; (x != 0) && (lo < limit); x &= x - 1) {
+            int cx = x & -x;
+            for (int y = x & (x - 1); y != 0; y &= y - 1) {
+                int cy = y & -y;
+                for (int z = y & (y - 1); z != 0; z &= z - 1) {
+                    int hand = cx | cy | (z & -z);
+                    int score = PlayTable.scoreOf(hand);
+                    if (score > 0) {
+                        long after = GameState.play(state, hand, 0);
+                        if (score + Solver.upperBound(after) > lo) {
+                            int r = refill(after, depth - 1);
+                            lo = Math.max(lo, score + lower(r));
+                            hi = Math.max(hi, score + upper(r));
+                        }
+                    }
+                }
+            }
+            long after = GameState.play(state, cx, 0);
+            if (Solver.upperBound(after) > lo) {
+                int r = refill(after, depth - 1);
+                lo = Math.max(lo, lower(r));
+                hi = Math.max(hi, upper(r));
+            }
+        }
+        hi = (lo >= limit) ? lo : Math.max(lo, Math.min(hi, limit));
+        if (lo == hi)
+            table.put(key, lo);
+        keys[slot] = key;
+        ranges[slot] = pack(lo, hi);
+        depths[slot] = (byte) depth;
+        stored++;
+        return pack(lo, hi);
+    }
+
+    /**
+     * @param state state right after a play
+     * @param depth number of plays to search ahead after the deal
+     * @return the range of the highest score that can be added over every possible deal
+     */
+    private int refill(long state, int depth) {
+        int undealt = GameState.undealt(state);
+        int need = GameState.BOARD - Integer.bitCount(GameState.board(state));
+        if (Integer.bitCount(undealt) <= need)
+            return search(GameState.deal(state, undealt), depth);
+        int lo = 0, hi = 0;
+        for (int deal = Deals.first(undealt, need); deal >= 0; deal = Deals.next(undealt, deal)) {
+            int r = search(GameState.deal(state, deal), depth);
+            lo = Math.max(lo, lower(r));
+            hi = Math.max(hi, upper(r));
+        } return pack(lo, hi);
+    }
+
+    /**
+     * the range of a position that is not searched: the best hand on the board can be played right away, and the
+     * upper bound of the Solver can't be beaten.
+     *
+     * @param state card locations of a state
+     * @return the range of the highest score that can still be added from that state
+     */
+    private static int frontier(long state) {
+        int lo = PlayTable.bestHand(GameState.board(state));
+        return pack(lo, Math.max(lo, Solver.upperBound(state)));
+    }
+
+    /**
+     * @param lo lowest possible value
+     * @param hi highest possible value
+     * @return both packed into an int
+     */
+    private static int pack(int lo, int hi) {
+        return lo | (hi << 16);
+    }
+
+    /**
+     * @param range packed range
+     * @return the lowest possible value
+     */
+    private static int lower(int range) {
+        return range & 0xFFFF;
+    }
+
+    /**
+     * @param range packed range
+     * @return the highest possible value
+     */
+    private static int upper(int range) {
+        return range >>> 16;
+    }
+
+    /**
+     * thrown to unwind the search once the time budget is used up
+     */
+    private static class OutOfTime extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        OutOfTime() {
+            super(null, null, false, false);
+        }
+    }
+}
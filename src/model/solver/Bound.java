@@ -0,0 +1,70 @@
+package model.solver;
+
+/**
+ * What an AnytimeSolver could prove about the highest achievable score before its time ran out: a score that can
+ * certainly be reached, and a score that certainly can't be beaten. Once the two meet, the bound is exact.
+ */
+public class Bound {
+
+    /**
+     * a final score that can be reached
+     */
+    private final int lower;
+
+    /**
+     * no final score above this can be reached
+     */
+    private final int upper;
+
+    /**
+     * number of plays that were searched ahead
+     */
+    private final int depth;
+
+    /**
+     * @param lower a final score that can be reached
+     * @param upper no final score above this can be reached
+     * @param depth number of plays that were searched ahead
+     */
+    public Bound(int lower, int upper, int depth) {
+        this.lower = lower;
+        this.upper = upper;
+        this.depth = depth;
+    }
+
+    /**
+     * @return the highest final score that is proven to be reachable
+     */
+    public int getLower() {
+        return lower;
+    }
+
+    /**
+     * @return the highest final score that could possibly be reached
+     */
+    public int getUpper() {
+        return upper;
+    }
+
+    /**
+     * @return number of plays that were searched ahead
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return true iff the highest achievable score is known exactly, i.e. getLower() == getUpper()
+     */
+    public boolean isExact() {
+        return lower == upper;
+    }
+
+    /**
+     * @return String representation of this bound, i.e. the range of the highest achievable score
+     */
+    @Override
+    public String toString() {
+        return isExact() ? Integer.toString(lower) : lower + " - " + upper;
+    }
+}
@@ -0,0 +1,17 @@
+package model.solver;
+
+/**
+ * Thrown when a search would need more memory than it was given. Whatever it cached so far stays within its budget,
+ * so the caller can go on with an estimate that needs less memory, e.g. a sampled Distribution instead of an exact one.
+ */
+public class BudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param message what ran out of memory
+     */
+    public BudgetExceededException(String message) {
+        super(message);
+    }
+}
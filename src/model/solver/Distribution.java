@@ -0,0 +1,103 @@
+package model.solver;
+
+/**
+ * Probability distribution of the final score of a game. Every play scores a multiple of ten points, so the scores
+ * are kept in bins of BIN points: bin i holds the probability of a final score of exactly i * BIN. The distribution is
+ * either exact, as computed by a PolicyEvaluator, or sampled from random games by MonteCarlo.
+ */
+public class Distribution {
+
+    /**
+     * number of points in a bin
+     */
+    public static final int BIN = 10;
+
+    /**
+     * probability of each final score, by score / BIN
+     */
+    private final double[] bins;
+
+    /**
+     * false if the probabilities were sampled
+     */
+    private final boolean exact;
+
+    /**
+     * @param bins  probability of each final score, by score / BIN. the array is not copied
+     * @param exact false if the probabilities were sampled
+     */
+    public Distribution(double[] bins, boolean exact) {
+        this.bins = bins;
+        this.exact = exact;
+    }
+
+    /**
+     * @param score a final score
+     * @return the probability that the game ends with exactly that score
+     */
+    public double getProbability(int score) {
+        if ((score < 0) || (score % BIN != 0) || (score / BIN >= bins.length))
+            return 0;
+        return bins[score / BIN];
+    }
+
+    /**
+     * @param target a final score
+     * @return the probability that the game ends with at least that score
+     */
+    public double getProbabilityAtLeast(int target) {
+        double p = 0;
+        for (int i = Math.max(0, (target + BIN - 1) / BIN); i < bins.length; i++)
+            p += bins[i];
+        return Math.min(1, p);
+    }
+
+    /**
+     * @return the expected final score
+     */
+    public double getMean() {
+        double mean = 0;
+        for (int i = 0; i < bins.length; i++)
+            mean += bins[i] * i * BIN;
+        return mean;
+    }
+
+    /**
+     * @return the lowest final score that can happen
+     */
+    public int getMin() {
+        int i = 0;
+        while ((i < bins.length - 1) && (bins[i] == 0))
+            i++;
+        return i * BIN;
+    }
+
+    /**
+     * @return the highest final score that can happen
+     */
+    public int getMax() {
+        int i = bins.length - 1;
+        while ((i > 0) && (bins[i] == 0))
+            i--;
+        return i * BIN;
+    }
+
+    /**
+     * @return true iff the probabilities are exact rather than sampled
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @return String representation of this distribution, i.e. every final score that can happen with its probability
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(exact ? "exact" : "sampled");
+        for (int i = 0; i < bins.length; i++)
+            if (bins[i] > 0)
+                sb.append(String.format(" %d:%.4f", i * BIN, bins[i]));
+        return sb.toString();
+    }
+}
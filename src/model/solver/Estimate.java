@@ -0,0 +1,109 @@
+package model.solver;
+
+/**
+ * Result of a MonteCarlo run: how often the sampled games reached the target score, and their mean final score, each
+ * with a 95% confidence interval.
+ */
+public class Estimate {
+
+    /**
+     * z-value of a 95% confidence interval
+     */
+    private static final double Z = 1.96;
+
+    /**
+     * number of games sampled
+     */
+    private final long samples;
+
+    /**
+     * number of sampled games that reached the target
+     */
+    private final long hits;
+
+    /**
+     * mean final score
+     */
+    private final double mean;
+
+    /**
+     * standard deviation of the final score
+     */
+    private final double deviation;
+
+    /**
+     * @param samples   number of games sampled
+     * @param hits      number of sampled games that reached the target
+     * @param mean      mean final score
+     * @param deviation standard deviation of the final score
+     */
+    public Estimate(long samples, long hits, double mean, double deviation) {
+        this.samples = samples;
+        this.hits = hits;
+        this.mean = mean;
+        this.deviation = deviation;
+    }
+
+    /**
+     * @return number of games sampled
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return the estimated probability of reaching the target
+     */
+    public double getProbability() {
+        return (double) hits / samples;
+    }
+
+    /**
+     * @return lower end of the 95% confidence interval of the probability (Wilson score interval)
+     */
+    public double getProbabilityLow() {
+        return wilson(-Z);
+    }
+
+    /**
+     * @return upper end of the 95% confidence interval of the probability (Wilson score interval)
+     */
+    public double getProbabilityHigh() {
+        return wilson(Z);
+    }
+
+    /**
+     * @return the mean final score
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return half the width of the 95% confidence interval of the mean final score
+     */
+    public double getMeanError() {
+        return Z * deviation / Math.sqrt(samples);
+    }
+
+    /**
+     * @param z z-value of one end of the interval
+     * @return that end of the Wilson score interval of the probability
+     */
+    private double wilson(double z) {
+        double p = getProbability();
+        double n = samples;
+        double center = p + z * z / (2 * n);
+        double spread = z * Math.sqrt(p * (1 - p) / n + z * z / (4 * n * n));
+        return (center + spread) / (1 + z * z / n);
+    }
+
+    /**
+     * @return String representation of this estimate, i.e. the probability and the mean with their intervals
+     */
+    @Override
+    public String toString() {
+        return String.format("P = %.3f [%.3f, %.3f] : mean %.1f +- %.1f (%d games)", getProbability(),
+                getProbabilityLow(), getProbabilityHigh(), mean, getMeanError(), samples);
+    }
+}
@@ -0,0 +1,49 @@
+package model.solver;
+
+/**
+ * The outlook of a game as computed by Expectimax: the final score that can be expected when playing optimally, and
+ * the highest final score that can be reached with the best possible deals.
+ */
+public class Evaluation {
+
+    /**
+     * expected final score
+     */
+    private final double expected;
+
+    /**
+     * highest achievable final score
+     */
+    private final int max;
+
+    /**
+     * @param expected expected final score
+     * @param max      highest achievable final score
+     */
+    public Evaluation(double expected, int max) {
+        this.expected = expected;
+        this.max = max;
+    }
+
+    /**
+     * @return the final score that can be expected when playing optimally
+     */
+    public double getExpected() {
+        return expected;
+    }
+
+    /**
+     * @return the highest final score that can be reached
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @return String representation of this evaluation, i.e. the expected and the highest score
+     */
+    @Override
+    public String toString() {
+        return String.format("expected %.1f : max %d", expected, max);
+    }
+}
@@ -0,0 +1,196 @@
+package model.solver;
+
+import model.Board;
+import model.Deals;
+import model.GameState;
+import model.PlayTable;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Expectimax engine for the final score of a game. It plays by the same rules as the Solver, but treats every deal as
+ * a chance node: each set of cards that can be dealt out of the deck is equally likely, so the value of a deal is the
+ * average over all of them. Our own plays are still maximized over. The result is the final score that can be
+ * expected when playing optimally, rather than the score reached with the best possible luck.
+ *
+ * Expected values are memoized per position in a ValueTable, under GameState.canonical like the Solver. Deals are
+ * also cut short with an upper bound on what is left to score: once the cards dealt so far can't lift the average
+ * above the best play already found, the rest of them are skipped. This never changes the value of a position, only
+ * how much of it is searched.
+ *
+ * bestPlay values every play on a board this way to find the optimal one. An Expectimax must only be used by one thread
+ * at a time; the thread can be interrupted to cancel a search.
+ */
+public class Expectimax {
+
+    /**
+     * default size of the value table, as log2 of the number of entries (32 MB)
+     */
+    public static final int DEFAULT_TABLE_BITS = 21;
+
+    /**
+     * number of positions searched between two checks for cancellation, minus one
+     */
+    private static final int CHECK_INTERVAL = 0xFFF;
+
+    /**
+     * how much higher the expected score of a play must be to count as better, so rounding errors don't break ties
+     */
+    private static final double TIE = 1e-9;
+
+    /**
+     * solver used for the highest achievable score
+     */
+    private final Solver solver;
+
+    /**
+     * cache of the expected additional score of each position
+     */
+    private final ValueTable table;
+
+    /**
+     * number of positions searched so far
+     */
+    private int nodes = 0;
+
+    /**
+     * make an engine with tables of the default size
+     */
+    public Expectimax() {
+        this(new Solver(), new ValueTable(DEFAULT_TABLE_BITS));
+    }
+
+    /**
+     * @param solver solver used for the highest achievable score
+     * @param table  value table to use. it can be shared between engines that run one after another
+     */
+    public Expectimax(Solver solver, ValueTable table) {
+        this.solver = solver;
+        this.table = table;
+    }
+
+    /**
+     * @param state packed game state (see GameState)
+     * @return the expected and the highest final score from that state
+     */
+    public Evaluation evaluate(long state) {
+        return new Evaluation(expected(state), solver.solve(state));
+    }
+
+    /**
+     * @param state packed game state (see GameState)
+     * @return the final score that can be expected from that state when playing optimally
+     */
+    public double expected(long state) {
+        return GameState.score(state) + best(GameState.key(state));
+    }
+
+    /**
+     * @param state packed game state (see GameState) with a complete board
+     * @param play  bitmask of the cards of a play on that board: one card to remove, or three cards to play
+     * @return the final score that can be expected after making that play, and playing optimally from then on
+     */
+    public double expected(long state, int play) {
+        int points = (Integer.bitCount(play) == 3) ? PlayTable.scoreOf(play) : 0;
+        return GameState.score(state) + points + refill(GameState.play(GameState.key(state), play, 0), -1);
+    }
+
+    /**
+     * the optimal play: the one with the highest expected final score. Every scoring hand and every removal is valued,
+     * not only those Board.bestPlay would consider, and all of them share the value table, so a position that several
+     * plays lead to is only searched once. Ties go to the play of Board.bestPlay.
+     *
+     * @param state packed game state (see GameState) with a complete board
+     * @return bitmask of the cards of the optimal play: one card to remove, or three cards to play
+     * @throws CancellationException if the thread was interrupted
+     */
+    public int bestPlay(long state) {
+        int board = GameState.board(state);
+        int best = Board.bestPlay(state);
+        double value = expected(state, best);
+        for (int x = board; x != 0; x &= x - 1) {
+            int cx = x & -x;
+            for (int y = x & (x - 1); y != 0; y &= y - 1) {
+                int cy = y & -y;
+                for (int z = y & (y - 1); z != 0; z &= z - 1) {
+                    int hand = cx | cy | (z & -z);
+                    if (PlayTable.scoreOf(hand) == 0)
+                        continue;
+                    double v = expected(state, hand);
+                    if (v > value + TIE) {
+                        best = hand;
+                        value = v;
+                    }
+                }
+            }
+        }
+        for (int x = board; x != 0; x &= x - 1) {
+            double v = expected(state, x & -x);
+            if (v > value + TIE) {
+                best = x & -x;
+                value = v;
+            }
+        } return best;
+    }
+
+    /**
+     * @param state card locations of a state, with a score of 0
+     * @return the expected score that can still be added from that state by the best play
+     */
+    private double best(long state) {
+        int board = GameState.board(state);
+        if (GameState.isEnd(state))
+            return PlayTable.bestHand(board);
+        long key = GameState.canonical(state);
+        double best = table.get(key);
+        if (!Double.isNaN(best))
+            return best;
+        if (((++nodes & CHECK_INTERVAL) == 0) && Thread.currentThread().isInterrupted())
+            throw new CancellationException();
+
+        best = 0;
+        for (int x = board; x != 0; x &= x - 1) {
+            int cx = x & -x;
+            for (int y = x & (x - 1); y != 0; y &= y - 1) {
+                int cy = y & -y;
+                for (int z = y & (y - 1); z != 0; z &= z - 1) {
+                    int hand = cx | cy | (z & -z);
+                    int score = PlayTable.scoreOf(hand);
+                    if (score > 0)
+                        best = Math.max(best, score + refill(GameState.play(state, hand, 0), best - score));
+                }
+            }
+        }
+        for (int x = board; x != 0; x &= x - 1)
+            best = Math.max(best, refill(GameState.play(state, x & -x, 0), best));
+        table.put(key, best);
+        return best;
+    }
+
+    /**
+     * refill the board after a play, averaging over every possible deal. The search stops early once the average can
+     * no longer get above alpha; the value returned is then still an upper bound, but at most alpha.
+     *
+     * @param state state right after a play
+     * @param alpha score the deal has to beat to matter
+     * @return the expected score that can still be added after the deal
+     */
+    private double refill(long state, double alpha) {
+        int undealt = GameState.undealt(state);
+        int need = GameState.BOARD - Integer.bitCount(GameState.board(state));
+        if (Integer.bitCount(undealt) <= need)
+            return best(GameState.deal(state, undealt));
+        double bound = Solver.upperBound(state);
+        if (bound <= alpha)
+            return bound;
+
+        long deals = Deals.count(undealt, need), done = 0;
+        double sum = 0;
+        for (int deal = Deals.first(undealt, need); deal >= 0; deal = Deals.next(undealt, deal)) {
+            sum += best(GameState.deal(state, deal));
+            done++;
+            if (sum + (deals - done) * bound <= alpha * deals)
+                return (sum + (deals - done) * bound) / deals;
+        } return sum / deals;
+    }
+}
@@ -0,0 +1,145 @@
+package model.solver;
+
+/**
+ * The counts of a SolverMetrics at one point in time.
+ */
+public class MetricsSnapshot {
+
+    /**
+     * positions expanded, by depth
+     */
+    private final long[] nodes;
+
+    /**
+     * lookups of a position that was already known
+     */
+    private final long hits;
+
+    /**
+     * lookups of a position that had to be searched
+     */
+    private final long misses;
+
+    /**
+     * positions stored in a cache
+     */
+    private final long stored;
+
+    /**
+     * deepest search, in plays
+     */
+    private final int peakDepth;
+
+    /**
+     * true if an estimate was used instead of an exact answer, to stay within a memory budget
+     */
+    private final boolean degraded;
+
+    /**
+     * time since the counters were reset, in nanoseconds
+     */
+    private final long elapsed;
+
+    /**
+     * @param nodes     positions expanded, by depth. the array is not copied
+     * @param hits      lookups of a position that was already known
+     * @param misses    lookups of a position that had to be searched
+     * @param stored    positions stored in a cache
+     * @param peakDepth deepest search, in plays
+     * @param degraded  true if an estimate was used instead of an exact answer, to stay within a memory budget
+     * @param elapsed   time since the counters were reset, in nanoseconds
+     */
+    public MetricsSnapshot(long[] nodes, long hits, long misses, long stored, int peakDepth, boolean degraded,
+                           long elapsed) {
+        this.nodes = nodes;
+        this.hits = hits;
+        this.misses = misses;
+        this.stored = stored;
+        this.peakDepth = peakDepth;
+        this.degraded = degraded;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @param depth number of plays from the position a solve started from
+     * @return number of positions expanded at that depth
+     */
+    public long getNodes(int depth) {
+        return (depth < nodes.length) ? nodes[depth] : 0;
+    }
+
+    /**
+     * @return number of positions expanded at any depth
+     */
+    public long getNodes() {
+        long sum = 0;
+        for (long n : nodes)
+            sum += n;
+        return sum;
+    }
+
+    /**
+     * @return lookups of a position that was already known
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return lookups of a position that had to be searched
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the share of lookups that found a known position, 0 if there were none
+     */
+    public double getHitRate() {
+        return (hits + misses == 0) ? 0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * @return deepest search, in plays
+     */
+    public int getPeakDepth() {
+        return peakDepth;
+    }
+
+    /**
+     * @return positions stored in a cache, i.e. the entries the solvers allocated
+     */
+    public long getStored() {
+        return stored;
+    }
+
+    /**
+     * @return true iff an estimate was used instead of an exact answer, to stay within a memory budget
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * @return time since the counters were reset, in nanoseconds
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return String representation of this snapshot, on one line
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%.1f ms, %d nodes (", elapsed / 1e6, getNodes()));
+        int last = nodes.length - 1;
+        while ((last > 0) && (nodes[last] == 0))
+            last--;
+        for (int d = 0; d <= last; d++)
+            sb.append((d == 0) ? "" : " ").append(nodes[d]);
+        return sb.append(String.format(" by depth), %d hits, %d misses (%.1f%%), %d stored, peak depth %d%s", hits,
+                misses, 100 * getHitRate(), stored, peakDepth, degraded ? ", degraded" : "")).toString();
+    }
+}
@@ -0,0 +1,255 @@
+package model.solver;
+
+import model.Board;
+import model.GameState;
+import model.PlayTable;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estimates the chance of reaching a target score by playing out many random games from the current state. Each game
+ * deals the remaining cards in a random order and plays Board.bestPlay until the deck is empty; the hand left on the
+ * board is then counted like in the Solver. Unlike the exact solvers, this works from the very first card.
+ *
+ * The games are split over the cores with fork/join. Every task gets its own SplittableRandom, split off its parent,
+ * so a run with the same seed always samples the same games. The totals are collected in LongAdders without locking,
+ * and the final scores of each task are counted locally before they are added to the shared histogram.
+ */
+public class MonteCarlo {
+
+    /**
+     * the score that a game should reach
+     */
+    public static final int TARGET = 400;
+
+    /**
+     * number of games a single task plays before it splits
+     */
+    private static final long LEAF = 1 << 12;
+
+    /**
+     * pool that plays the games
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * play games on every core
+     */
+    public MonteCarlo() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism number of threads to play games on
+     */
+    public MonteCarlo(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * @param state   packed game state (see GameState). the board does not need to be complete
+     * @param samples number of games to play
+     * @param seed    seed for the random deals
+     * @return the estimated chance of a final score of at least TARGET, and the mean final score
+     */
+    public Estimate estimate(long state, long samples, long seed) {
+        return estimate(state, samples, seed, TARGET);
+    }
+
+    /**
+     * @param state   packed game state (see GameState). the board does not need to be complete
+     * @param samples number of games to play
+     * @param seed    seed for the random deals
+     * @param target  the score that a game should reach
+     * @return the estimated chance of a final score of at least target, and the mean final score
+     */
+    public Estimate estimate(long state, long samples, long seed, int target) {
+        Totals totals = run(state, samples, seed, target);
+        double mean = (double) totals.sum.sum() / samples;
+        double variance = Math.max(0, (double) totals.squares.sum() / samples - mean * mean);
+        return new Estimate(samples, totals.hits.sum(), mean, Math.sqrt(variance));
+    }
+
+    /**
+     * @param state   packed game state (see GameState). the board does not need to be complete
+     * @param samples number of games to play
+     * @param seed    seed for the random deals
+     * @return the sampled distribution of the final score
+     */
+    public Distribution distribution(long state, long samples, long seed) {
+        Totals totals = run(state, samples, seed, TARGET);
+        double[] bins = new double[totals.bins.length()];
+        for (int i = 0; i < bins.length; i++)
+            bins[i] = (double) totals.bins.get(i) / samples;
+        return new Distribution(bins, false);
+    }
+
+    /**
+     * @param state   packed game state to start from
+     * @param samples number of games to play
+     * @param seed    seed for the random deals
+     * @param target  the score that a game should reach
+     * @return the totals of all the games
+     */
+    private Totals run(long state, long samples, long seed, int target) {
+        Totals totals = new Totals((GameState.score(state) + Solver.upperBound(state)) / Distribution.BIN + 1);
+        pool.invoke(new Games(state, samples, new SplittableRandom(seed), target, totals));
+        return totals;
+    }
+
+    /**
+     * stop the threads of this estimator. it can't be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * play one game to the end, following Board.bestPlay
+     *
+     * @param state  packed game state to start from
+     * @param random source of the deals
+     * @return the final score of the game
+     */
+    static int playOut(long state, SplittableRandom random) {
+        state = refill(state, random);
+        while (!GameState.isEnd(state)) {
+            int play = Board.bestPlay(state);
+            state = GameState.play(state, play, (Integer.bitCount(play) == 3) ? PlayTable.scoreOf(play) : 0);
+            state = refill(state, random);
+        } return GameState.score(state) + PlayTable.bestHand(GameState.board(state));
+    }
+
+    /**
+     * deal random cards until the board is complete or the deck is empty
+     *
+     * @param state  packed game state
+     * @param random source of the deal
+     * @return the state after the deal
+     */
+    static long refill(long state, SplittableRandom random) {
+        int undealt = GameState.undealt(state);
+        int need = GameState.BOARD - Integer.bitCount(GameState.board(state));
+        if (Integer.bitCount(undealt) <= need)
+            return GameState.deal(state, undealt);
+        for (int i = 0; i < need; i++) {
+            int rest = undealt;
+            for (int n = random.nextInt(Integer.bitCount(undealt)); n > 0; n--)
+                rest &= rest - 1;
+            int card = rest & -rest;
+            state = GameState.deal(state, card);
+            undealt &= ~card;
+        } return state;
+    }
+
+    /**
+     * totals of all games of one run
+     */
+    private static class Totals {
+
+        /**
+         * number of games that reached the target
+         */
+        final LongAdder hits = new LongAdder();
+
+        /**
+         * sum of the final scores
+         */
+        final LongAdder sum = new LongAdder();
+
+        /**
+         * sum of the squares of the final scores
+         */
+        final LongAdder squares = new LongAdder();
+
+        /**
+         * number of games that ended with each final score, by score / Distribution.BIN
+         */
+        final AtomicLongArray bins;
+
+        /**
+         * @param bins number of different final scores that can happen, in bins of Distribution.BIN points
+         */
+        Totals(int bins) {
+            this.bins = new AtomicLongArray(bins);
+        }
+    }
+
+    /**
+     * task that plays a number of games, splitting itself in two while there are many of them
+     */
+    private static class Games extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * state every game starts from
+         */
+        private final long state;
+
+        /**
+         * number of games to play
+         */
+        private final long samples;
+
+        /**
+         * source of the deals of this task
+         */
+        private final SplittableRandom random;
+
+        /**
+         * the score that a game should reach
+         */
+        private final int target;
+
+        /**
+         * where the results go
+         */
+        private final Totals totals;
+
+        /**
+         * @param state   state every game starts from
+         * @param samples number of games to play
+         * @param random  source of the deals of this task
+         * @param target  the score that a game should reach
+         * @param totals  where the results go
+         */
+        Games(long state, long samples, SplittableRandom random, int target, Totals totals) {
+            this.state = state;
+            this.samples = samples;
+            this.random = random;
+            this.target = target;
+            this.totals = totals;
+        }
+
+        @Override
+        protected void compute() {
+            if (samples > LEAF) {
+                long half = samples / 2;
+                invokeAll(new Games(state, half, random.split(), target, totals),
+                        new Games(state, samples - half, random, target, totals));
+                return;
+            }
+            long hits = 0, sum = 0, squares = 0;
+            long[] bins = new long[totals.bins.length()];
+            for (long i = 0; i < samples; i++) {
+                int score = playOut(state, random);
+                if (score >= target)
+                    hits++;
+                sum += score;
+                squares += (long) score * score;
+                bins[score / Distribution.BIN]++;
+            }
+            for (int i = 0; i < bins.length; i++)
+                if (bins[i] != 0)
+                    totals.bins.addAndGet(i, bins[i]);
+            totals.hits.add(hits);
+            totals.sum.add(sum);
+            totals.squares.add(squares);
+        }
+    }
+}
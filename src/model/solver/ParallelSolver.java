@@ -0,0 +1,216 @@
+package model.solver;
+
+import model.Deals;
+import model.GameState;
+import model.PlayTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the Solver on several cores. The first levels of the search, i.e. every play and every deal after it, are
+ * split into fork/join tasks; below that each task runs the ordinary sequential Solver. All tasks share one
+ * TranspositionTable, so a position solved by one task is not solved again by another. The result is the same as
+ * the one of the sequential Solver, since the highest achievable score is just the best of all the tasks.
+ *
+ * Interrupting the thread that called solve cancels every task of that solve.
+ */
+public class ParallelSolver {
+
+    /**
+     * default number of deal levels that are split into tasks
+     */
+    public static final int DEFAULT_SPLIT_DEPTH = 1;
+
+    /**
+     * pool that runs the tasks
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * transposition table shared by every task
+     */
+    private final TranspositionTable table;
+
+    /**
+     * number of deal levels that are split into tasks
+     */
+    private final int splitDepth;
+
+    /**
+     * where the work of the sequential solves is counted, null if it isn't
+     */
+    private final SolverMetrics metrics;
+
+    /**
+     * make a solver that uses every core, with a table of the default size
+     */
+    public ParallelSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism number of threads to solve with
+     */
+    public ParallelSolver(int parallelism) {
+        this(parallelism, new TranspositionTable(Solver.DEFAULT_TABLE_BITS), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * @param parallelism number of threads to solve with
+     * @param table       transposition table shared by all threads
+     * @param splitDepth  number of deal levels that are split into tasks, usually 1 or 2
+     */
+    public ParallelSolver(int parallelism, TranspositionTable table, int splitDepth) {
+        this(parallelism, table, splitDepth, null);
+    }
+
+    /**
+     * @param parallelism number of threads to solve with
+     * @param table       transposition table shared by all threads
+     * @param splitDepth  number of deal levels that are split into tasks, usually 1 or 2
+     * @param metrics     where the work of the sequential solves below the split is counted, or null. their depths
+     *                    are counted from where each of them starts
+     */
+    public ParallelSolver(int parallelism, TranspositionTable table, int splitDepth, SolverMetrics metrics) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.table = table;
+        this.splitDepth = splitDepth;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param state packed game state (see GameState)
+     * @return the highest final score that can be reached from that state
+     * @throws CancellationException if the calling thread was interrupted during the solve
+     */
+    public int solve(long state) {
+        ForkJoinTask<Integer> task = pool.submit(new Best(GameState.key(state), splitDepth, null));
+        try {
+            return GameState.score(state) + task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * wait until no task of this solver runs anymore. The tasks of a solve that was cancelled only notice it between
+     * two positions, and may still write to the table for a moment after solve has returned; this waits for them,
+     * e.g. before the table is compacted.
+     */
+    public void awaitIdle() {
+        pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * stop the threads of this solver. it can't be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * every state that can follow a state: one for each play and each deal after it. The score of each of them is
+     * the score of the play that led to it.
+     *
+     * @param state card locations of a state, with a score of 0
+     * @return the packed following states
+     */
+    static List<Long> children(long state) {
+        List<Long> children = new ArrayList<>();
+        int board = GameState.board(state);
+        for (int x = board; x != 0; x &= x - 1) {
+            int cx = x & -x;
+            for (int y = x & (x - 1); y != 0; y &= y - 1) {
+                int cy = y & -y;
+                for (int z = y & (y - 1); z != 0; z &= z - 1) {
+                    int hand = cx | cy | (z & -z);
+                    int score = PlayTable.scoreOf(hand);
+                    if (score > 0)
+                        deals(GameState.play(state, hand, score), children);
+                }
+            }
+            deals(GameState.play(state, cx, 0), children);
+        } return children;
+    }
+
+    /**
+     * add every deal that refills the board after a play
+     *
+     * @param state    state right after a play
+     * @param children list to add the dealt states to
+     */
+    private static void deals(long state, List<Long> children) {
+        int undealt = GameState.undealt(state);
+        int need = GameState.BOARD - Integer.bitCount(GameState.board(state));
+        if (Integer.bitCount(undealt) <= need)
+            children.add(GameState.deal(state, undealt));
+        else
+            for (int deal = Deals.first(undealt, need); deal >= 0; deal = Deals.next(undealt, deal))
+                children.add(GameState.deal(state, deal));
+    }
+
+    /**
+     * task that solves the highest score that can still be added from a state. it forks one task per following state
+     * until the split levels are used up, then solves sequentially.
+     */
+    private class Best extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * card locations of the state to solve, with a score of 0
+         */
+        private final long state;
+
+        /**
+         * number of deal levels left to split
+         */
+        private final int depth;
+
+        /**
+         * the task of the whole solve. once it is cancelled, every task stops
+         */
+        private final Best root;
+
+        /**
+         * @param state card locations of the state to solve
+         * @param depth number of deal levels left to split
+         * @param root  the task of the whole solve, null for the root itself
+         */
+        Best(long state, int depth, Best root) {
+            this.state = state;
+            this.depth = depth;
+            this.root = (root == null) ? this : root;
+        }
+
+        @Override
+        protected Integer compute() {
+            if ((depth == 0) || GameState.isEnd(state))
+                return new Solver(table, root::isCancelled, metrics).solve(state);
+            if (root.isCancelled())
+                throw new CancellationException();
+            List<Long> children = children(state);
+            List<Best> tasks = new ArrayList<>(children.size());
+            for (long child : children)
+                tasks.add(new Best(GameState.key(child), depth - 1, root));
+            invokeAll(tasks);
+            int best = 0;
+            for (int i = 0; i < tasks.size(); i++)
+                best = Math.max(best, GameState.score(children.get(i)) + tasks.get(i).join());
+            return best;
+        }
+    }
+}
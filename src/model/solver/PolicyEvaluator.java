@@ -0,0 +1,320 @@
+package model.solver;
+
+import model.Board;
+import model.Deals;
+import model.GameState;
+import model.PlayTable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Exact distribution of the final score when a game is played by a fixed policy, Board.bestPlay unless another one
+ * is given. Where Board.getSuccessors lists every end-of-game board one by one, this works by dynamic programming:
+ * the distribution of the points that can still be added is computed once per position, as a histogram in bins of
+ * Distribution.BIN points. A play shifts the histogram by its score, and a deal averages the histograms of every set
+ * of cards that can be dealt, each of which is equally likely.
+ *
+ * The histograms are memoized by GameState.key, and kept between calls, so evaluating the position of the next turn
+ * is mostly lookups. Each position has a single histogram since the policy is deterministic. Unlike the solvers, the
+ * key is not made canonical under the colors: the policy breaks ties by card id, so relabeling the colors can change
+ * its plays.
+ *
+ * The memo is kept within a budget of bytes. When it is full, the positions that were used least recently are
+ * forgotten first, so the positions of earlier turns go before those of the evaluation that is running. Each position
+ * remembers the last evaluation that used it; once the least recently used one belongs to the evaluation that is
+ * running, that evaluation needs more than the whole budget by itself and would mostly redo its own work, so it gives
+ * up with a BudgetExceededException instead. A PolicyEvaluator must only be used by one thread at a time; the thread can be
+ * interrupted to cancel an evaluation.
+ */
+public class PolicyEvaluator {
+
+    /**
+     * number of positions evaluated between two checks for cancellation, minus one
+     */
+    private static final int CHECK_INTERVAL = 0xFFF;
+
+    /**
+     * default memory budget of the memo, in bytes
+     */
+    public static final long DEFAULT_MEMORY = 128L << 20;
+
+    /**
+     * estimated size of a memo entry apart from its bins, in bytes: the map entry, the boxed key, the Entry and the
+     * array header
+     */
+    private static final int ENTRY_BYTES = 104;
+
+    /**
+     * the play made on each complete board, as a bitmask of one card to remove or three cards to play
+     */
+    private final LongToIntFunction policy;
+
+    /**
+     * histogram of the points that can still be added from each position, by GameState.key, in the order they were
+     * last used
+     */
+    private final Map<Long, Entry> memo = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * most bytes the memo may take
+     */
+    private final long memory;
+
+    /**
+     * estimated bytes taken by the memo
+     */
+    private long bytes = 0;
+
+    /**
+     * number of the current evaluation
+     */
+    private int evaluation = 0;
+
+    /**
+     * number of positions evaluated so far
+     */
+    private int nodes = 0;
+
+    /**
+     * where the work of each evaluation is counted, null if it isn't
+     */
+    private final SolverMetrics metrics;
+
+    /**
+     * positions expanded in the current evaluation, by depth
+     */
+    private final long[] expanded = new long[SolverMetrics.DEPTHS];
+
+    /**
+     * lookups in the current evaluation that found a memoized position
+     */
+    private long hits = 0;
+
+    /**
+     * lookups in the current evaluation that had to evaluate the position
+     */
+    private long misses = 0;
+
+    /**
+     * positions the current evaluation stored in the memo
+     */
+    private long stored = 0;
+
+    /**
+     * number of plays between the position being evaluated and the one the evaluation started from
+     */
+    private int depth = 0;
+
+    /**
+     * deepest position of the current evaluation, in plays
+     */
+    private int peak = 0;
+
+    /**
+     * evaluate Board.bestPlay
+     */
+    public PolicyEvaluator() {
+        this(Board::bestPlay);
+    }
+
+    /**
+     * @param policy the play made on each complete board (a packed GameState), as a bitmask of one card to remove or
+     *               three cards to play. it must always return the same play for the same cards
+     */
+    public PolicyEvaluator(LongToIntFunction policy) {
+        this(policy, null);
+    }
+
+    /**
+     * @param policy  the play made on each complete board (a packed GameState), as a bitmask of one card to remove or
+     *                three cards to play. it must always return the same play for the same cards
+     * @param metrics where the work of each evaluation is counted, or null
+     */
+    public PolicyEvaluator(LongToIntFunction policy, SolverMetrics metrics) {
+        this(policy, metrics, DEFAULT_MEMORY);
+    }
+
+    /**
+     * @param policy  the play made on each complete board (a packed GameState), as a bitmask of one card to remove or
+     *                three cards to play. it must always return the same play for the same cards
+     * @param metrics where the work of each evaluation is counted, or null
+     * @param memory  most bytes the memo may take
+     */
+    public PolicyEvaluator(LongToIntFunction policy, SolverMetrics metrics, long memory) {
+        this.policy = policy;
+        this.metrics = metrics;
+        this.memory = memory;
+    }
+
+    /**
+     * @param state packed game state (see GameState). the board does not need to be complete
+     * @return the exact distribution of the final score when the rest of the game is played by the policy
+     * @throws CancellationException   if the thread was interrupted
+     * @throws BudgetExceededException if the evaluation needs more memory than the budget of this evaluator
+     */
+    public Distribution evaluate(long state) {
+        double[] added;
+        depth = 0;
+        evaluation++;
+        try {
+            added = refill(GameState.key(state));
+        } finally {
+            if (metrics != null) {
+                metrics.add(expanded, hits, misses, stored, peak);
+                Arrays.fill(expanded, 0);
+                hits = misses = stored = peak = 0;
+            }
+        }
+        int offset = GameState.score(state) / Distribution.BIN;
+        double[] bins = new double[offset + added.length];
+        System.arraycopy(added, 0, bins, offset, added.length);
+        return new Distribution(bins, true);
+    }
+
+    /**
+     * forget every memoized position, e.g. when a new game starts
+     */
+    public void clear() {
+        memo.clear();
+        bytes = 0;
+    }
+
+    /**
+     * forget the memoized positions whose keys don't pass a test, e.g. those that can no longer be reached
+     *
+     * @param keep test of the key (see GameState.key) of each memoized position
+     * @return number of positions forgotten
+     */
+    public int retain(LongPredicate keep) {
+        int removed = 0;
+        for (Iterator<Map.Entry<Long, Entry>> it = memo.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Entry> e = it.next();
+            if (!keep.test(e.getKey())) {
+                bytes -= e.getValue().bytes();
+                it.remove();
+                removed++;
+            }
+        } return removed;
+    }
+
+    /**
+     * @return number of positions that are memoized
+     */
+    public int size() {
+        return memo.size();
+    }
+
+    /**
+     * @param state card locations of a state with a complete board (or an empty deck), with a score of 0
+     * @return histogram of the points that can still be added from that state
+     */
+    private double[] added(long state) {
+        if (GameState.isEnd(state)) {
+            double[] bins = new double[PlayTable.bestHand(GameState.board(state)) / Distribution.BIN + 1];
+            bins[bins.length - 1] = 1;
+            return bins;
+        }
+        Entry entry = memo.get(state);
+        if (entry != null) {
+            entry.used = evaluation;
+            hits++;
+            return entry.bins;
+        }
+        if (((++nodes & CHECK_INTERVAL) == 0) && Thread.currentThread().isInterrupted())
+            throw new CancellationException();
+        misses++;
+        expanded[Math.min(depth, SolverMetrics.DEPTHS - 1)]++;
+        peak = Math.max(peak, ++depth);
+
+        int play = policy.applyAsInt(state);
+        int points = (Integer.bitCount(play) == 3) ? PlayTable.scoreOf(play) : 0;
+        double[] after = refill(GameState.play(state, play, 0));
+        depth--;
+        double[] bins = new double[points / Distribution.BIN + after.length];
+        System.arraycopy(after, 0, bins, points / Distribution.BIN, after.length);
+        remember(state, bins);
+        return bins;
+    }
+
+    /**
+     * memoize the histogram of a position, and forget the positions that were used least recently until the memo
+     * fits in its budget again
+     *
+     * @param state card locations of a state, with a score of 0
+     * @param bins  histogram of the points that can still be added from that state
+     * @throws BudgetExceededException if every position of earlier evaluations is already forgotten
+     */
+    private void remember(long state, double[] bins) {
+        Entry entry = new Entry(bins, evaluation);
+        memo.put(state, entry);
+        bytes += entry.bytes();
+        stored++;
+        for (Iterator<Entry> eldest = memo.values().iterator(); bytes > memory; eldest.remove()) {
+            entry = eldest.next();
+            if (entry.used == evaluation)
+                throw new BudgetExceededException("the policy evaluation needs more than " + (memory >> 20) + " MB");
+            bytes -= entry.bytes();
+        }
+    }
+
+    /**
+     * @param state state right after a play
+     * @return histogram of the points that can still be added, over every possible deal
+     */
+    private double[] refill(long state) {
+        int undealt = GameState.undealt(state);
+        int need = GameState.BOARD - Integer.bitCount(GameState.board(state));
+        if (Integer.bitCount(undealt) <= need)
+            return added(GameState.deal(state, undealt));
+        double[] sum = new double[0];
+        for (int deal = Deals.first(undealt, need); deal >= 0; deal = Deals.next(undealt, deal)) {
+            double[] bins = added(GameState.deal(state, deal));
+            if (bins.length > sum.length)
+                sum = Arrays.copyOf(sum, bins.length);
+            for (int i = 0; i < bins.length; i++)
+                sum[i] += bins[i];
+        }
+        double weight = Deals.probability(undealt, need);
+        for (int i = 0; i < sum.length; i++)
+            sum[i] *= weight;
+        return sum;
+    }
+
+    /**
+     * a memoized histogram, with the last evaluation that used it
+     */
+    private static class Entry {
+
+        /**
+         * histogram of the points that can still be added from the position
+         */
+        final double[] bins;
+
+        /**
+         * number of the last evaluation that used the histogram
+         */
+        int used;
+
+        /**
+         * @param bins histogram of the points that can still be added from the position
+         * @param used number of the evaluation that computed it
+         */
+        Entry(double[] bins, int used) {
+            this.bins = bins;
+            this.used = used;
+        }
+
+        /**
+         * @return estimated bytes taken by this entry in the memo
+         */
+        long bytes() {
+            return ENTRY_BYTES + 8L * bins.length;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package model.solver;
+
+import model.Deals;
+import model.GameState;
+import model.PlayTable;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Exact solver for the highest achievable score of a game. Unlike Board.getSuccessors, which follows Board.bestPlay,
+ * the solver tries every play (each scoring hand and each removal) and every possible deal after it, and returns
+ * the best final score that can be reached. The game is over once the deck is empty; the hand that can still be made
+ * from the cards left on the board at that point is counted towards the final score.
+ *
+ * The future of a state only depends on where the cards are, not on how that position was reached, so the best
+ * score reachable from each position is memoized in a TranspositionTable keyed by GameState.canonical. Positions
+ * that are reached through different deal orders, or that only differ by a relabeling of the colors, are only
+ * searched once.
+ *
+ * A solve can be cancelled: every few thousand positions the solver checks whether it should stop, and if so throws
+ * a CancellationException. Everything solved up to that point stays in the table.
+ *
+ * A solver can count its work in a SolverMetrics: the positions it expands at each depth, and how often the table
+ * already knew a position.
+ */
+public class Solver {
+
+    /**
+     * default size of the transposition table, as log2 of the number of entries (32 MB)
+     */
+    public static final int DEFAULT_TABLE_BITS = 22;
+
+    /**
+     * number of positions searched between two checks for cancellation, minus one
+     */
+    private static final int CHECK_INTERVAL = 0xFFF;
+
+    /**
+     * cache of the best additional score reachable from each position
+     */
+    private final TranspositionTable table;
+
+    /**
+     * tells the solver to stop
+     */
+    private final BooleanSupplier cancelled;
+
+    /**
+     * where the work of each solve is counted, null if it isn't
+     */
+    private final SolverMetrics metrics;
+
+    /**
+     * number of positions searched so far
+     */
+    private int nodes = 0;
+
+    /**
+     * positions expanded in the current solve, by depth
+     */
+    private final long[] expanded = new long[SolverMetrics.DEPTHS];
+
+    /**
+     * lookups in the current solve that found a known position
+     */
+    private long hits = 0;
+
+    /**
+     * lookups in the current solve that had to search the position
+     */
+    private long misses = 0;
+
+    /**
+     * positions the current solve stored in the table
+     */
+    private long stored = 0;
+
+    /**
+     * number of plays between the position being searched and the one the solve started from
+     */
+    private int depth = 0;
+
+    /**
+     * deepest search of the current solve, in plays
+     */
+    private int peak = 0;
+
+    /**
+     * make a solver with a table of the default size
+     */
+    public Solver() {
+        this(new TranspositionTable(DEFAULT_TABLE_BITS));
+    }
+
+    /**
+     * make a solver that stops when the thread running it is interrupted
+     *
+     * @param table transposition table to use. it can be shared between solvers
+     */
+    public Solver(TranspositionTable table) {
+        this(table, () -> Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * @param table     transposition table to use. it can be shared between solvers
+     * @param cancelled checked every few thousand positions. the solve is cancelled once it returns true
+     */
+    public Solver(TranspositionTable table, BooleanSupplier cancelled) {
+        this(table, cancelled, null);
+    }
+
+    /**
+     * @param table     transposition table to use. it can be shared between solvers
+     * @param cancelled checked every few thousand positions. the solve is cancelled once it returns true
+     * @param metrics   where the work of each solve is counted, or null
+     */
+    public Solver(TranspositionTable table, BooleanSupplier cancelled, SolverMetrics metrics) {
+        this.table = table;
+        this.cancelled = cancelled;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param state packed game state (see GameState)
+     * @return the highest final score that can be reached from that state
+     * @throws CancellationException if the solve was cancelled
+     */
+    public int solve(long state) {
+        depth = 0;
+        try {
+            return GameState.score(state) + best(GameState.key(state));
+        } finally {
+            if (metrics != null) {
+                metrics.add(expanded, hits, misses, stored, peak);
+                Arrays.fill(expanded, 0);
+                hits = misses = stored = peak = 0;
+            }
+        }
+    }
+
+    /**
+     * @param state card locations of a state, with a score of 0
+     * @return the highest score that can still be added from that state
+     */
+    private int best(long state) {
+        int board = GameState.board(state);
+        if (GameState.isEnd(state))
+            return PlayTable.bestHand(board);
+        long key = GameState.canonical(state);
+        int best = table.get(key);
+        if (best >= 0) {
+            hits++;
+            return best;
+        }
+        if (((++nodes & CHECK_INTERVAL) == 0) && cancelled.getAsBoolean())
+            throw new CancellationException();
+        misses++;
+        expanded[Math.min(depth, SolverMetrics.DEPTHS - 1)]++;
+        peak = Math.max(peak, ++depth);
+
+        best = 0;
+        for (int x = board; x != 0; x &= x - 1) {
+            int cx = x & -x;
+            for (int y = x & (x - 1); y != 0; y &= y - 1) {
+                int cy = y & -y;
+                for (int z = y & (y - 1); z != 0; z &= z - 1) {
+                    int hand = cx | cy | (z & -z);
+                    int score = PlayTable.scoreOf(hand);
+                    if (score > 0)
+                        best = Math.max(best, score + refill(GameState.play(state, hand, 0)));
+                }
+            }
+            best = Math.max(best, refill(GameState.play(state, cx, 0)));
+        }
+        depth--;
+        table.put(key, best);
+        stored++;
+        return best;
+    }
+
+    /**
+     * refill the board after a play, taking the best of every possible deal.
+     *
+     * @param state state right after a play
+     * @return the highest score that can still be added after the deal
+     */
+    private int refill(long state) {
+        int undealt = GameState.undealt(state);
+        int need = GameState.BOARD - Integer.bitCount(GameState.board(state));
+        if (Integer.bitCount(undealt) <= need)
+            return best(GameState.deal(state, undealt));
+        int best = 0;
+        for (int deal = Deals.first(undealt, need); deal >= 0; deal = Deals.next(undealt, deal))
+            best = Math.max(best, best(GameState.deal(state, deal)));
+        return best;
+    }
+
+    /**
+     * an upper bound on the score that can still be added from a position: there can't be more hands than there are
+     * sets of three cards left, and none of them can be worth more than the best play that is still live.
+     *
+     * @param state packed game state
+     * @return the bound
+     */
+    public static int upperBound(long state) {
+        int live = GameState.undealt(state) | GameState.board(state);
+        return (Integer.bitCount(live) / 3) * bestLivePlay(live);
+    }
+
+    /**
+     * @param live bitmask of the cards that are not discarded
+     * @return score of the best play that can still be made out of these cards
+     */
+    private static int bestLivePlay(int live) {
+        int best = 0;
+        int numbers = (live | (live >>> GameState.NUMBERS) | (live >>> (2 * GameState.NUMBERS))) & 0xFF;
+        for (int lo = 1; lo <= GameState.NUMBERS - 2; lo++) {
+            if (((numbers >>> (lo - 1)) & 7) == 7)
+                best = Math.max(best, lo * 10);
+            for (int c = 0; c < 3; c++) {
+                int run = 7 << (c * GameState.NUMBERS + lo - 1);
+                if ((live & run) == run)
+                    best = Math.max(best, 40 + lo * 10);
+            }
+        }
+        for (int n = 1; n <= GameState.NUMBERS; n++) {
+            int same = 0x010101 << (n - 1);
+            if ((live & same) == same)
+                best = Math.max(best, 10 + n * 10);
+        } return best;
+    }
+}
@@ -0,0 +1,116 @@
+package model.solver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of what the solvers do, to find out why a solve takes long. Solvers that are given a SolverMetrics count
+ * their work in plain fields while they search, and add it here when a solve ends or is cancelled, so counting costs
+ * next to nothing. Several solvers on several threads can share one SolverMetrics.
+ *
+ * snapshot() gives the counts since the last reset(), together with the time that passed in the meantime. What the
+ * solvers allocate as they go is the positions they store in their caches (the transposition table, the cache of ranges
+ * of the AnytimeSolver or the memo of the PolicyEvaluator), so that is what is counted.
+ */
+public class SolverMetrics {
+
+    /**
+     * number of depths that are counted separately. deeper positions are counted with the deepest one.
+     */
+    public static final int DEPTHS = 24;
+
+    /**
+     * positions expanded, by the number of plays between them and the position the solve started from
+     */
+    private final LongAdder[] nodes = new LongAdder[DEPTHS];
+
+    /**
+     * lookups of a position that was already known
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * lookups of a position that had to be searched
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * positions stored in a cache
+     */
+    private final LongAdder stored = new LongAdder();
+
+    /**
+     * deepest search seen, in plays
+     */
+    private final AtomicLong peakDepth = new AtomicLong();
+
+    /**
+     * true if a solver gave up on an exact answer to stay within its memory budget
+     */
+    private volatile boolean degraded;
+
+    /**
+     * System.nanoTime() of the last reset
+     */
+    private volatile long start;
+
+    /**
+     * make a new set of counters, all at 0
+     */
+    public SolverMetrics() {
+        for (int d = 0; d < DEPTHS; d++)
+            nodes[d] = new LongAdder();
+        reset();
+    }
+
+    /**
+     * set every counter back to 0, and start timing again
+     */
+    public void reset() {
+        for (LongAdder n : nodes)
+            n.reset();
+        hits.reset();
+        misses.reset();
+        stored.reset();
+        peakDepth.set(0);
+        degraded = false;
+        start = System.nanoTime();
+    }
+
+    /**
+     * add the work of a solver
+     *
+     * @param expanded positions expanded by depth, of length DEPTHS
+     * @param hits     lookups of a position that was already known
+     * @param misses   lookups of a position that had to be searched
+     * @param stored   positions stored in a cache
+     * @param depth    deepest search, in plays
+     */
+    void add(long[] expanded, long hits, long misses, long stored, int depth) {
+        for (int d = 0; d < DEPTHS; d++)
+            if (expanded[d] != 0)
+                nodes[d].add(expanded[d]);
+        this.hits.add(hits);
+        this.misses.add(misses);
+        this.stored.add(stored);
+        peakDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * note that a solver ran out of memory budget, and that an estimate was used instead of its exact answer
+     */
+    public void degraded() {
+        degraded = true;
+    }
+
+    /**
+     * @return the counts since the last reset
+     */
+    public MetricsSnapshot snapshot() {
+        long[] expanded = new long[DEPTHS];
+        for (int d = 0; d < DEPTHS; d++)
+            expanded[d] = nodes[d].sum();
+        return new MetricsSnapshot(expanded, hits.sum(), misses.sum(), stored.sum(), (int) peakDepth.get(), degraded,
+                System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,135 @@
+package model.solver;
+
+import model.Board;
+import model.GameState;
+
+/**
+ * The solvers of one game, together with everything they have learned so far. A session lives from turn to turn:
+ * the exact values, the ranges of the AnytimeSolver, the expected values and the memo of the PolicyEvaluator are all
+ * kept, so the position of the next turn, which was a subtree of the search of the last one, is mostly lookups.
+ *
+ * What a turn does make useless are the positions that the actual play and deal ruled out, i.e. those where a card
+ * that was discarded is still in play, or a card that was dealt is still in the deck. advance drops them from every
+ * cache, so the room they took goes to positions that can still come up, instead of those being evicted first.
+ *
+ * The memory budget is split over the caches: a quarter each for the transposition table and the expected values,
+ * a thirty-second for the ranges of the AnytimeSolver, and the rest for the policy evaluator. A session must only be
+ * used by one thread at a time, apart from the threads of its ParallelSolver.
+ */
+public class SolverSession {
+
+    /**
+     * exact values of positions, shared by every solver of the session
+     */
+    private final TranspositionTable table;
+
+    /**
+     * expected values of positions, used by the advisor
+     */
+    private final ValueTable values;
+
+    /**
+     * solves the highest achievable score exactly
+     */
+    private final ParallelSolver solver;
+
+    /**
+     * solves the highest achievable score exactly on the calling thread alone
+     */
+    private final Solver sequential;
+
+    /**
+     * finds a bound on the highest achievable score within a time budget
+     */
+    private final AnytimeSolver anytime;
+
+    /**
+     * finds the optimal play
+     */
+    private final Expectimax advisor;
+
+    /**
+     * computes the exact distribution of the final score when Board.bestPlay is followed
+     */
+    private final PolicyEvaluator evaluator;
+
+    /**
+     * @param memory    memory the caches may take, in bytes
+     * @param tablebase exact values of endgame positions, or null
+     * @param metrics   where the work of the solvers is counted, or null
+     */
+    public SolverSession(long memory, Tablebase tablebase, SolverMetrics metrics) {
+        table = new TranspositionTable(TranspositionTable.bitsFor(memory / 4, Solver.DEFAULT_TABLE_BITS), tablebase);
+        values = new ValueTable(ValueTable.bitsFor(memory / 4, Expectimax.DEFAULT_TABLE_BITS));
+        solver = new ParallelSolver(Runtime.getRuntime().availableProcessors(), table,
+                ParallelSolver.DEFAULT_SPLIT_DEPTH, metrics);
+        sequential = new Solver(table);
+        anytime = new AnytimeSolver(table, AnytimeSolver.bitsFor(memory / 32, AnytimeSolver.DEFAULT_CACHE_BITS),
+                metrics);
+        advisor = new Expectimax(new Solver(table, () -> false), values);
+        evaluator = new PolicyEvaluator(Board::bestPlay, metrics, memory / 2 - memory / 32);
+    }
+
+    /**
+     * @return the solver for the exact highest achievable score
+     */
+    public ParallelSolver getSolver() {
+        return solver;
+    }
+
+    /**
+     * @return a solver for the exact highest achievable score that shares the table of getSolver, but runs only on the
+     * thread that calls it, e.g. a low priority one, and stops when that thread is interrupted
+     */
+    public Solver getSequential() {
+        return sequential;
+    }
+
+    /**
+     * @return the solver for a bound on the highest achievable score within a time budget
+     */
+    public AnytimeSolver getAnytime() {
+        return anytime;
+    }
+
+    /**
+     * @return the engine that finds the optimal play
+     */
+    public Expectimax getAdvisor() {
+        return advisor;
+    }
+
+    /**
+     * @return the evaluator of the distribution of the final score
+     */
+    public PolicyEvaluator getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * move the session on to the position of a new turn: forget every position that can't be reached from it anymore.
+     * The canonical keys of the solvers may have their colors relabeled, so these are kept if any relabeling can be
+     * reached. This goes through every cache, so it is best done while the user has nothing to wait for, e.g. once the
+     * results of a turn are out: a position that can't be reached now can't be reached later either. No solve may run
+     * in the meantime. The tasks of a ParallelSolver solve that was cancelled may still be running, so they are waited
+     * for first: an entry they write while the table is compacted could be lost or end up in the wrong slot.
+     *
+     * @param state packed state of the new turn
+     * @return number of positions forgotten
+     */
+    public long advance(long state) {
+        solver.awaitIdle();
+        long key = GameState.key(state);
+        return (long) table.retain(k -> GameState.isReachableRelabeled(key, k))
+                + values.retain(k -> GameState.isReachableRelabeled(key, k))
+                + anytime.retain(k -> GameState.isReachableRelabeled(key, k))
+                + evaluator.retain(k -> GameState.isReachable(key, k));
+    }
+
+    /**
+     * stop the threads of the session. it can't solve anymore afterwards.
+     */
+    public void shutdown() {
+        solver.shutdown();
+    }
+}
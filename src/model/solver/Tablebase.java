@@ -0,0 +1,179 @@
+package model.solver;
+
+import model.GameState;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Endgame table of the highest score that can still be added from every position with a complete board and at most
+ * getLimit() cards left in the deck. It is made once by TablebaseGenerator and then memory-mapped, so a solver that
+ * reaches the endgame finds its value with a single lookup instead of searching the rest of the game.
+ *
+ * Every score is a multiple of ten, so each position takes one byte: its value divided by ten. The positions are
+ * numbered by a perfect hash. For u undealt cards, all positions with fewer undealt cards come first; then the
+ * positions are ordered by the set of cards on the board and, within a board, by the set of undealt cards out of the
+ * 19 that are not on it. Both sets are numbered with the combinatorial number system, so no index is wasted.
+ *
+ * The file starts with a header of four ints: a magic number, the version of the format, the number of cards in a
+ * deck and the limit. A file whose header doesn't match this code, e.g. one made before the scoring rules changed, is
+ * rejected when it is opened.
+ */
+public final class Tablebase {
+
+    /**
+     * first int of every tablebase file ("GRTB")
+     */
+    static final int MAGIC = 0x47525442;
+
+    /**
+     * version of the file format and of the rules it was solved with. bump it whenever either changes.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * size of the header, in bytes
+     */
+    static final int HEADER = 16;
+
+    /**
+     * highest limit whose table still fits in a single mapped buffer
+     */
+    static final int MAX_LIMIT = 6;
+
+    /**
+     * number of cards that are not on a complete board
+     */
+    private static final int REST = GameState.CARDS - GameState.BOARD;
+
+    /**
+     * binomial coefficients C(n, k) for n, k &lt;= GameState.CARDS
+     */
+    private static final int[][] CHOOSE = new int[GameState.CARDS + 1][GameState.CARDS + 1];
+
+    static {
+        for (int n = 0; n <= GameState.CARDS; n++) {
+            CHOOSE[n][0] = 1;
+            for (int k = 1; k <= n; k++)
+                CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + CHOOSE[n - 1][k];
+        }
+    }
+
+    /**
+     * the value of each position, divided by ten
+     */
+    private final ByteBuffer values;
+
+    /**
+     * highest number of undealt cards of a position in the table
+     */
+    private final int limit;
+
+    /**
+     * @param values the value of each position divided by ten, at its index. the buffer is not copied
+     * @param limit  highest number of undealt cards of a position in the table
+     */
+    Tablebase(ByteBuffer values, int limit) {
+        this.values = values;
+        this.limit = limit;
+    }
+
+    /**
+     * memory-map a tablebase file
+     *
+     * @param file file written by TablebaseGenerator
+     * @return the tablebase in that file
+     * @throws IOException if the file can't be read, or if it isn't a tablebase of this version
+     */
+    public static Tablebase open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining())
+                if (channel.read(header) < 0)
+                    throw new IOException(file + " is not a tablebase");
+            header.flip();
+            if (header.getInt() != MAGIC)
+                throw new IOException(file + " is not a tablebase");
+            if ((header.getInt() != VERSION) || (header.getInt() != GameState.CARDS))
+                throw new IOException(file + " is a tablebase of another version");
+            int limit = header.getInt();
+            if ((limit < 0) || (limit > MAX_LIMIT) || (channel.size() != HEADER + size(limit)))
+                throw new IOException(file + " is damaged");
+            return new Tablebase(channel.map(FileChannel.MapMode.READ_ONLY, HEADER, size(limit)), limit);
+        }
+    }
+
+    /**
+     * @return highest number of undealt cards of a position in the table
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param state packed game state, or the key of one
+     * @return true iff the value of that state is in the table
+     */
+    public boolean covers(long state) {
+        int undealt = Integer.bitCount(GameState.undealt(state));
+        return (undealt > 0) && (undealt <= limit) && (Integer.bitCount(GameState.board(state)) == GameState.BOARD);
+    }
+
+    /**
+     * @param state packed game state, or the key of one
+     * @return the highest score that can still be added from that state, or -1 if it isn't in the table
+     */
+    public int get(long state) {
+        if (!covers(state))
+            return -1;
+        return (values.get(index(state)) & 0xFF) * 10;
+    }
+
+    /**
+     * @param limit highest number of undealt cards
+     * @return number of positions with a complete board and 1 to limit undealt cards
+     */
+    static int size(int limit) {
+        return offset(limit + 1);
+    }
+
+    /**
+     * @param state packed state with a complete board and 1 to MAX_LIMIT undealt cards
+     * @return the index of that state in the table
+     */
+    static int index(long state) {
+        int board = GameState.board(state);
+        int undealt = GameState.undealt(state);
+        int u = Integer.bitCount(undealt);
+        int rest = 0;
+        for (int i = 0, cards = undealt; cards != 0; cards &= cards - 1, i++) {
+            int card = Integer.numberOfTrailingZeros(cards);
+            rest += CHOOSE[Integer.bitCount(~board & ((1 << card) - 1))][i + 1];
+        } return offset(u) + rank(board) * CHOOSE[REST][u] + rest;
+    }
+
+    /**
+     * @param u number of undealt cards
+     * @return index of the first position with u undealt cards
+     */
+    private static int offset(int u) {
+        int offset = 0;
+        for (int v = 1; v < u; v++)
+            offset += CHOOSE[GameState.CARDS][GameState.BOARD] * CHOOSE[REST][v];
+        return offset;
+    }
+
+    /**
+     * @param cards bitmask of a set of cards
+     * @return the rank of that set among all sets of the same size, in the combinatorial number system
+     */
+    private static int rank(int cards) {
+        int rank = 0;
+        for (int i = 0; cards != 0; cards &= cards - 1, i++)
+            rank += CHOOSE[Integer.numberOfTrailingZeros(cards)][i + 1];
+        return rank;
+    }
+}
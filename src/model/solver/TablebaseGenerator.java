@@ -0,0 +1,113 @@
+package model.solver;
+
+import model.Deals;
+import model.GameState;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * Offline job that writes a Tablebase file. It works backwards from the end of the deck: first every position with
+ * one undealt card is solved, then every position with two, and so on up to the limit. Any play made with u cards left
+ * in the deck is followed by a deal that leaves fewer, so by then every position that can follow is already in the
+ * table, and the Solver only has to search a single play deep.
+ *
+ * The boards of each level are solved in parallel. The values are written straight into the mapped file, and the
+ * header is only written once every level is done, so a job that is stopped halfway leaves no file that can be opened.
+ *
+ * Usage: TablebaseGenerator &lt;file&gt; [limit]
+ */
+public final class TablebaseGenerator {
+
+    /**
+     * limit used when none is given. it takes about 45 MB.
+     */
+    private static final int DEFAULT_LIMIT = 3;
+
+    /**
+     * the generator is only run through main
+     */
+    private TablebaseGenerator() {
+    }
+
+    /**
+     * @param args the file to write, and optionally the highest number of undealt cards to solve
+     * @throws IOException if the file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if ((args.length < 1) || (args.length > 2)) {
+            System.err.println("usage: TablebaseGenerator <file> [limit]");
+            System.exit(2);
+        }
+        int limit = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_LIMIT;
+        if ((limit < 1) || (limit > Tablebase.MAX_LIMIT)) {
+            System.err.println("the limit must be between 1 and " + Tablebase.MAX_LIMIT);
+            System.exit(2);
+        }
+        generate(new File(args[0]), limit);
+    }
+
+    /**
+     * @param file  file to write the tablebase to. it is replaced if it exists
+     * @param limit highest number of undealt cards of a position in the table
+     * @throws IOException if the file can't be written
+     */
+    public static void generate(File file, int limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer values = channel.map(FileChannel.MapMode.READ_WRITE, Tablebase.HEADER,
+                    Tablebase.size(limit));
+            int[] boards = subsets(GameState.ALL, GameState.BOARD);
+            for (int u = 1; u <= limit; u++) {
+                long start = System.nanoTime();
+                TranspositionTable table = new TranspositionTable(16, new Tablebase(values.duplicate(), u - 1));
+                int level = u;
+                IntStream.of(boards).parallel().forEach(board -> solve(board, level, table, values));
+                System.out.printf("%d undealt: %d positions in %.1f s%n", u,
+                        boards.length * Deals.combinations(GameState.CARDS - GameState.BOARD, u),
+                        (System.nanoTime() - start) / 1e9);
+            }
+            values.force();
+
+            ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER);
+            header.putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).putInt(GameState.CARDS).putInt(limit).flip();
+            while (header.hasRemaining())
+                channel.write(header, header.position());
+            channel.force(true);
+        }
+    }
+
+    /**
+     * solve every position with a given board and number of undealt cards
+     *
+     * @param board  bitmask of the cards on the board
+     * @param u      number of undealt cards
+     * @param table  table that knows every position with fewer undealt cards
+     * @param values where the values are written
+     */
+    private static void solve(int board, int u, TranspositionTable table, ByteBuffer values) {
+        Solver solver = new Solver(table, () -> false);
+        for (int undealt : subsets(~board & GameState.ALL, u)) {
+            long state = GameState.of(undealt, board, 0);
+            values.put(Tablebase.index(state), (byte) (solver.solve(state) / 10));
+        }
+    }
+
+    /**
+     * @param from  bitmask of a set of cards
+     * @param count size of the subsets
+     * @return every subset of from with count cards
+     */
+    private static int[] subsets(int from, int count) {
+        int[] subsets = new int[(int) Deals.count(from, count)];
+        int n = 0;
+        for (int deal = Deals.first(from, count); deal >= 0; deal = Deals.next(from, deal))
+            subsets[n++] = deal;
+        return subsets;
+    }
+}
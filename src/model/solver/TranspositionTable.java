@@ -0,0 +1,160 @@
+package model.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongPredicate;
+
+/**
+ * Fixed-size cache from the key of a state (see GameState.key) to a solved value. Each entry is a single long: the
+ * 48-bit key in the high bits and the value plus one in the low 16 bits, so an empty slot (0) never matches a key.
+ *
+ * The table never grows. Keys are spread over buckets of a few slots, and when a bucket is full an old entry is
+ * overwritten. A lookup can therefore miss a state that was solved before, but it never returns a wrong value.
+ *
+ * Since an entry is a single long that is read and written atomically, one table can be shared by solvers running on
+ * several threads without any locking. Racing writes can only make an entry get lost, like any other replacement.
+ *
+ * A table can be backed by a Tablebase. The endgame positions it covers are then looked up there and never stored.
+ */
+public class TranspositionTable {
+
+    /**
+     * number of slots searched for each key
+     */
+    private static final int WAYS = 4;
+
+    /**
+     * the packed entries
+     */
+    private final AtomicLongArray entries;
+
+    /**
+     * mask used to wrap an index into the entries
+     */
+    private final int mask;
+
+    /**
+     * shift that turns a 64-bit hash into an index
+     */
+    private final int shift;
+
+    /**
+     * exact values of endgame positions, null if there are none
+     */
+    private final Tablebase tablebase;
+
+    /**
+     * make a new, empty table
+     *
+     * @param bits log2 of the number of entries, i.e. the table uses 8 * 2^bits bytes
+     */
+    public TranspositionTable(int bits) {
+        this(bits, null);
+    }
+
+    /**
+     * make a new, empty table backed by a tablebase
+     *
+     * @param bits      log2 of the number of entries, i.e. the table uses 8 * 2^bits bytes
+     * @param tablebase exact values of endgame positions, or null
+     */
+    public TranspositionTable(int bits, Tablebase tablebase) {
+        this.tablebase = tablebase;
+        entries = new AtomicLongArray(1 << bits);
+        mask = entries.length() - 1;
+        shift = 64 - bits;
+    }
+
+    /**
+     * @param bytes most memory the table may take
+     * @param max   highest number of bits to return
+     * @return log2 of the number of entries of the largest table that fits in that memory, but at most max
+     */
+    public static int bitsFor(long bytes, int max) {
+        return Math.max(0, Math.min(max, 63 - Long.numberOfLeadingZeros(Math.max(1, bytes / 8))));
+    }
+
+    /**
+     * @param key key of a state
+     * @return the value stored for that state, or -1 if there is none
+     */
+    public int get(long key) {
+        if ((tablebase != null) && tablebase.covers(key))
+            return tablebase.get(key);
+        int i = index(key);
+        for (int w = 0; w < WAYS; w++) {
+            long e = entries.get((i + w) & mask);
+            if (e == 0)
+                return -1;
+            if ((e >>> 16) == key)
+                return (int) (e & 0xFFFF) - 1;
+        } return -1;
+    }
+
+    /**
+     * store the value of a state, replacing an older entry if the bucket is full
+     *
+     * @param key   key of a state
+     * @param value value of that state, in [0, 65535)
+     */
+    public void put(long key, int value) {
+        if ((tablebase != null) && tablebase.covers(key))
+            return;
+        int i = index(key);
+        long entry = (key << 16) | (value + 1);
+        for (int w = 0; w < WAYS; w++) {
+            long e = entries.get((i + w) & mask);
+            if ((e == 0) || ((e >>> 16) == key)) {
+                entries.lazySet((i + w) & mask, entry);
+                return;
+            }
+        } entries.lazySet((i + (int) (key & (WAYS - 1))) & mask, entry);
+    }
+
+    /**
+     * remove the entries whose keys don't pass a test, e.g. positions that can no longer be reached. The entries that
+     * are kept are moved up into the slots that are freed, so lookups still find them. No solver may use the table
+     * in the meantime.
+     *
+     * @param keep test of the key of each entry
+     * @return number of entries removed
+     */
+    public int retain(LongPredicate keep) {
+        int removed = 0;
+        for (int i = 0; i < entries.length(); i++) {
+            long e = entries.get(i);
+            if ((e != 0) && !keep.test(e >>> 16)) {
+                entries.set(i, 0);
+                removed++;
+            }
+        }
+        if (removed > 0)
+            for (int j = 0; j < entries.length() + WAYS; j++) {
+                long e = entries.get(j & mask);
+                if (e == 0)
+                    continue;
+                for (int i = index(e >>> 16); (i & mask) != (j & mask); i++)
+                    if (entries.get(i & mask) == 0) {
+                        entries.set(i & mask, e);
+                        entries.set(j & mask, 0);
+                        break;
+                    }
+            }
+        return removed;
+    }
+
+    /**
+     * remove every entry from this table
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++)
+            entries.set(i, 0);
+    }
+
+    /**
+     * @param key key of a state
+     * @return index of the first slot of the bucket of that key
+     */
+    private int index(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
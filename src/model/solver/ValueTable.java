@@ -0,0 +1,144 @@
+package model.solver;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Fixed-size cache from the key of a state (see GameState.key) to a real-valued result, such as an expected score.
+ * Like TranspositionTable, it is lossy: when a bucket is full an old entry is overwritten, so a lookup can miss but
+ * never returns the value of another state.
+ */
+public class ValueTable {
+
+    /**
+     * number of slots searched for each key
+     */
+    private static final int WAYS = 4;
+
+    /**
+     * marks an empty slot. no key has its top bit set, since keys are only 48 bits long
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * keys of the stored states
+     */
+    private final long[] keys;
+
+    /**
+     * value stored for the key at the same index
+     */
+    private final double[] values;
+
+    /**
+     * mask used to wrap an index into the entries
+     */
+    private final int mask;
+
+    /**
+     * shift that turns a 64-bit hash into an index
+     */
+    private final int shift;
+
+    /**
+     * make a new, empty table
+     *
+     * @param bits log2 of the number of entries, i.e. the table uses 16 * 2^bits bytes
+     */
+    public ValueTable(int bits) {
+        keys = new long[1 << bits];
+        values = new double[1 << bits];
+        mask = keys.length - 1;
+        shift = 64 - bits;
+        clear();
+    }
+
+    /**
+     * @param bytes most memory the table may take
+     * @param max   highest number of bits to return
+     * @return log2 of the number of entries of the largest table that fits in that memory, but at most max
+     */
+    public static int bitsFor(long bytes, int max) {
+        return Math.max(0, Math.min(max, 63 - Long.numberOfLeadingZeros(Math.max(1, bytes / 16))));
+    }
+
+    /**
+     * @param key key of a state
+     * @return the value stored for that state, or NaN if there is none
+     */
+    public double get(long key) {
+        int i = index(key);
+        for (int w = 0; w < WAYS; w++) {
+            long k = keys[(i + w) & mask];
+            if (k == key)
+                return values[(i + w) & mask];
+            if (k == EMPTY)
+                break;
+        } return Double.NaN;
+    }
+
+    /**
+     * store the value of a state, replacing an older entry if the bucket is full
+     *
+     * @param key   key of a state
+     * @param value value of that state
+     */
+    public void put(long key, double value) {
+        int i = index(key);
+        int slot = (i + (int) (key & (WAYS - 1))) & mask;
+        for (int w = 0; w < WAYS; w++) {
+            long k = keys[(i + w) & mask];
+            if ((k == EMPTY) || (k == key)) {
+                slot = (i + w) & mask;
+                break;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * remove the entries whose keys don't pass a test, e.g. positions that can no longer be reached. The entries that
+     * are kept are moved up into the slots that are freed, so lookups still find them.
+     *
+     * @param keep test of the key of each entry
+     * @return number of entries removed
+     */
+    public int retain(LongPredicate keep) {
+        int removed = 0;
+        for (int i = 0; i < keys.length; i++)
+            if ((keys[i] != EMPTY) && !keep.test(keys[i])) {
+                keys[i] = EMPTY;
+                removed++;
+            }
+        if (removed > 0)
+            for (int j = 0; j < keys.length + WAYS; j++) {
+                long k = keys[j & mask];
+                if (k == EMPTY)
+                    continue;
+                for (int i = index(k); (i & mask) != (j & mask); i++)
+                    if (keys[i & mask] == EMPTY) {
+                        keys[i & mask] = k;
+                        values[i & mask] = values[j & mask];
+                        keys[j & mask] = EMPTY;
+                        break;
+                    }
+            }
+        return removed;
+    }
+
+    /**
+     * remove every entry from this table
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * @param key key of a state
+     * @return index of the first slot of the bucket of that key
+     */
+    private int index(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
@@ -0,0 +1,257 @@
+package sim;
+
+import model.Board;
+import model.GameState;
+import model.PlayTable;
+import model.solver.Expectimax;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures how much score Board.bestPlay gives up. A fixed corpus of seeded games (the same decks as the Simulator)
+ * is played with the heuristic. At every decision with few enough cards left in the deck, Expectimax also works out
+ * the expected final score of each possible play. The regret of the decision is how much lower the expected final
+ * score of the heuristic's play is than that of the best play; it is 0 whenever the heuristic plays optimally.
+ *
+ * The games are split over a thread pool, and every thread has its own Expectimax, since its tables are not shared.
+ * Both the heuristic and the exact evaluation are timed, so solver time can be weighed against the score it gains.
+ *
+ * Usage: PolicyHarness [games] [limit] [threads] [seed]
+ */
+public final class PolicyHarness {
+
+    /**
+     * number of games in the corpus when none is given
+     */
+    private static final int DEFAULT_GAMES = 100;
+
+    /**
+     * decisions are evaluated once at most this many cards are left in the deck, unless another limit is given
+     */
+    private static final int DEFAULT_LIMIT = 7;
+
+    /**
+     * the harness is only run through main
+     */
+    private PolicyHarness() {
+    }
+
+    /**
+     * @param args [games] [limit] [threads] [seed]
+     * @throws InterruptedException if the run is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int limit = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_LIMIT;
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = (args.length > 3) ? Long.parseLong(args[3]) : 1;
+
+        Regret total = run(games, limit, threads, seed);
+        System.out.printf(Locale.ROOT, "%d games, decisions with at most %d undealt cards%n", games, limit);
+        System.out.printf(Locale.ROOT, "%8s %10s %10s %12s %12s %14s%n", "undealt", "decisions", "optimal",
+                "mean regret", "max regret", "solver ms");
+        for (int u = limit; u >= 0; u--)
+            if (total.decisions[u] > 0)
+                System.out.printf(Locale.ROOT, "%8d %10d %9.1f%% %12.3f %12.3f %14.3f%n", u, total.decisions[u],
+                        100.0 * total.optimal[u] / total.decisions[u], total.regret[u] / total.decisions[u],
+                        total.worst[u], total.solverNanos[u] / 1e6 / total.decisions[u]);
+        long decisions = total.sum(total.decisions);
+        System.out.printf(Locale.ROOT, "all: %d decisions, %.1f%% optimal, regret %.3f per decision and %.3f per game%n",
+                decisions, 100.0 * total.sum(total.optimal) / decisions, total.sum(total.regret) / decisions,
+                total.sum(total.regret) / games);
+        System.out.printf(Locale.ROOT, "heuristic: %.0f ns per decision, exact: %.3f ms per decision%n",
+                (double) total.heuristicNanos / decisions, total.sum(total.solverNanos) / 1e6 / decisions);
+    }
+
+    /**
+     * @param games   number of games in the corpus
+     * @param limit   decisions are evaluated once at most this many cards are left in the deck
+     * @param threads number of threads to evaluate on
+     * @param seed    seed of the decks
+     * @return the regret of every evaluated decision, added up by the number of undealt cards
+     * @throws InterruptedException if the run is interrupted
+     */
+    public static Regret run(int games, int limit, int threads, long seed) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Regret>> parts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = (int) ((long) games * t / threads), to = (int) ((long) games * (t + 1) / threads);
+                parts.add(pool.submit(() -> evaluate(from, to, limit, seed)));
+            }
+            Regret total = new Regret(limit);
+            for (Future<Regret> part : parts)
+                total.add(part.get());
+            return total;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @param from  number of the first game to play
+     * @param to    number of the game after the last one to play
+     * @param limit decisions are evaluated once at most this many cards are left in the deck
+     * @param seed  seed of the decks
+     * @return the regret of the evaluated decisions of these games
+     */
+    private static Regret evaluate(int from, int to, int limit, long seed) {
+        Regret regret = new Regret(limit);
+        Expectimax expectimax = new Expectimax();
+        int[] order = new int[GameState.CARDS];
+        for (long game = from; (game < to) && !Thread.currentThread().isInterrupted(); game++) {
+            Simulator.shuffle(order, new SplittableRandom(seed ^ (game * 0x9E3779B97F4A7C15L)));
+            long state = GameState.of(GameState.ALL, 0, 0);
+            int next = 0;
+            while (true) {
+                while ((next < order.length) && (Integer.bitCount(GameState.board(state)) < GameState.BOARD))
+                    state = GameState.deal(state, 1 << order[next++]);
+                if (GameState.isEnd(state))
+                    break;
+                long start = System.nanoTime();
+                int play = Board.bestPlay(state);
+                long heuristic = System.nanoTime() - start;
+                int u = Integer.bitCount(GameState.undealt(state));
+                if (u <= limit)
+                    regret.record(u, heuristic, expectimax, state, play);
+                state = GameState.play(state, play, (Integer.bitCount(play) == 3) ? PlayTable.scoreOf(play) : 0);
+            }
+        } return regret;
+    }
+
+    /**
+     * the regret of a number of decisions, added up by the number of undealt cards at the time of the decision
+     */
+    public static class Regret {
+
+        /**
+         * number of decisions evaluated
+         */
+        final long[] decisions;
+
+        /**
+         * number of decisions where the heuristic's play was as good as the best one
+         */
+        final long[] optimal;
+
+        /**
+         * sum of the regrets
+         */
+        final double[] regret;
+
+        /**
+         * highest regret of a single decision
+         */
+        final double[] worst;
+
+        /**
+         * time spent finding the best play exactly, in nanoseconds
+         */
+        final long[] solverNanos;
+
+        /**
+         * time spent on the heuristic, in nanoseconds
+         */
+        long heuristicNanos = 0;
+
+        /**
+         * @param limit highest number of undealt cards of a decision
+         */
+        Regret(int limit) {
+            decisions = new long[limit + 1];
+            optimal = new long[limit + 1];
+            regret = new double[limit + 1];
+            worst = new double[limit + 1];
+            solverNanos = new long[limit + 1];
+        }
+
+        /**
+         * evaluate every play of a decision and record the regret of the heuristic's play
+         *
+         * @param u          number of undealt cards
+         * @param heuristic  time the heuristic took, in nanoseconds
+         * @param expectimax engine for the expected final scores
+         * @param state      packed game state of the decision
+         * @param play       the play chosen by the heuristic
+         */
+        void record(int u, long heuristic, Expectimax expectimax, long state, int play) {
+            long start = System.nanoTime();
+            double best = Double.NEGATIVE_INFINITY, chosen = 0;
+            int board = GameState.board(state);
+            for (int x = board; x != 0; x &= x - 1) {
+                int cx = x & -x;
+                for (int y = x & (x - 1); y != 0; y &= y - 1) {
+                    int cy = y & -y;
+                    for (int z = y & (y - 1); z != 0; z &= z - 1) {
+                        int hand = cx | cy | (z & -z);
+                        if (PlayTable.scoreOf(hand) > 0) {
+                            double value = expectimax.expected(state, hand);
+                            best = Math.max(best, value);
+                            if (hand == play)
+                                chosen = value;
+                        }
+                    }
+                }
+                double value = expectimax.expected(state, cx);
+                best = Math.max(best, value);
+                if (cx == play)
+                    chosen = value;
+            }
+            solverNanos[u] += System.nanoTime() - start;
+            heuristicNanos += heuristic;
+            double r = Math.max(0, best - chosen);
+            decisions[u]++;
+            if (r < 1e-9)
+                optimal[u]++;
+            regret[u] += r;
+            worst[u] = Math.max(worst[u], r);
+        }
+
+        /**
+         * @param other regrets to add to these
+         */
+        void add(Regret other) {
+            for (int u = 0; u < decisions.length; u++) {
+                decisions[u] += other.decisions[u];
+                optimal[u] += other.optimal[u];
+                regret[u] += other.regret[u];
+                worst[u] = Math.max(worst[u], other.worst[u]);
+                solverNanos[u] += other.solverNanos[u];
+            }
+            heuristicNanos += other.heuristicNanos;
+        }
+
+        /**
+         * @param values a count for each number of undealt cards
+         * @return the sum of the counts
+         */
+        long sum(long[] values) {
+            long sum = 0;
+            for (long v : values)
+                sum += v;
+            return sum;
+        }
+
+        /**
+         * @param values a value for each number of undealt cards
+         * @return the sum of the values
+         */
+        double sum(double[] values) {
+            double sum = 0;
+            for (double v : values)
+                sum += v;
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package sim;
+
+import model.Board;
+import model.Deck;
+import model.GameState;
+import model.Play;
+import model.PlayTable;
+import model.cardModel;
+import model.solver.Distribution;
+import model.solver.MonteCarlo;
+import model.solver.Solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many games without the UI, following the suggested play every turn like a player who always clicks Next.
+ * Each game gets its own shuffled deck, made from the seed and the number of the game, so a run gives the same
+ * results no matter how many threads it is spread over. The games are split evenly over a fixed thread pool and every
+ * thread counts its own final scores, which are only added up at the end.
+ *
+ * By default the games are played on packed GameStates with Board.bestPlay(long), which makes the same plays as the
+ * object model, ties included. With -objects they are played with Deck, Board and Play objects exactly like
+ * ccontroller does, which is about twice as slow and gives the same results.
+ *
+ * Usage: Simulator [-objects] [games] [threads] [seed]
+ */
+public final class Simulator {
+
+    /**
+     * number of games played when none is given
+     */
+    private static final long DEFAULT_GAMES = 1_000_000;
+
+    /**
+     * true to play with the object model rather than packed states
+     */
+    private final boolean objects;
+
+    /**
+     * @param objects true to play with the object model rather than packed states
+     */
+    public Simulator(boolean objects) {
+        this.objects = objects;
+    }
+
+    /**
+     * @param args [-objects] [games] [threads] [seed]
+     * @throws InterruptedException if the run is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        List<String> rest = new ArrayList<>();
+        boolean objects = false;
+        for (String arg : args)
+            if (arg.equals("-objects"))
+                objects = true;
+            else
+                rest.add(arg);
+        long games = (rest.size() > 0) ? Long.parseLong(rest.get(0)) : DEFAULT_GAMES;
+        int threads = (rest.size() > 1) ? Integer.parseInt(rest.get(1)) : Runtime.getRuntime().availableProcessors();
+        long seed = (rest.size() > 2) ? Long.parseLong(rest.get(2)) : 1;
+
+        long start = System.nanoTime();
+        long[] counts = new Simulator(objects).run(games, threads, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double[] bins = new double[counts.length];
+        for (int i = 0; i < bins.length; i++)
+            bins[i] = (double) counts[i] / games;
+        Distribution distribution = new Distribution(bins, false);
+        System.out.printf(Locale.ROOT, "%d games on %d threads in %.2f s: %.0f games/s%n", games, threads, seconds,
+                games / seconds);
+        System.out.printf(Locale.ROOT, "mean final score: %.2f%n", distribution.getMean());
+        System.out.printf(Locale.ROOT, "P(>=%d): %.4f%n", MonteCarlo.TARGET,
+                distribution.getProbabilityAtLeast(MonteCarlo.TARGET));
+        for (int i = 0; i < counts.length; i++)
+            if (counts[i] > 0)
+                System.out.printf(Locale.ROOT, "%5d %10d %8.4f%%%n", i * Distribution.BIN, counts[i], 100 * bins[i]);
+    }
+
+    /**
+     * @param games   number of games to play
+     * @param threads number of threads to play them on
+     * @param seed    seed of the decks
+     * @return the number of games that ended with each final score, by score / Distribution.BIN
+     * @throws InterruptedException if the run is interrupted. the games that are still being played are stopped
+     */
+    public long[] run(long games, int threads, long seed) throws InterruptedException {
+        int size = Solver.upperBound(GameState.of(GameState.ALL, 0, 0)) / Distribution.BIN + 1;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> parts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long from = games * t / threads, to = games * (t + 1) / threads;
+                parts.add(pool.submit(() -> play(from, to, seed, size)));
+            }
+            long[] counts = new long[size];
+            for (Future<long[]> part : parts) {
+                long[] c = part.get();
+                for (int i = 0; i < size; i++)
+                    counts[i] += c[i];
+            } return counts;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @param from number of the first game to play
+     * @param to   number of the game after the last one to play
+     * @param seed seed of the decks
+     * @param size number of bins of final scores
+     * @return the number of these games that ended with each final score, by score / Distribution.BIN
+     */
+    private long[] play(long from, long to, long seed, int size) {
+        long[] counts = new long[size];
+        int[] order = new int[GameState.CARDS];
+        for (long game = from; (game < to) && !Thread.currentThread().isInterrupted(); game++) {
+            shuffle(order, new SplittableRandom(seed ^ (game * 0x9E3779B97F4A7C15L)));
+            counts[(objects ? playObjects(order) : playPacked(order)) / Distribution.BIN]++;
+        } return counts;
+    }
+
+    /**
+     * @param order  filled with every card id, in a random order
+     * @param random source of the shuffle
+     */
+    static void shuffle(int[] order, SplittableRandom random) {
+        for (int i = 0; i < order.length; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+    }
+
+    /**
+     * play a game on packed states
+     *
+     * @param order the ids of the cards, in the order they are dealt
+     * @return the final score of the game
+     */
+    static int playPacked(int[] order) {
+        long state = GameState.of(GameState.ALL, 0, 0);
+        int next = 0;
+        while (true) {
+            while ((next < order.length) && (Integer.bitCount(GameState.board(state)) < GameState.BOARD))
+                state = GameState.deal(state, 1 << order[next++]);
+            if (GameState.isEnd(state))
+                return GameState.score(state) + PlayTable.bestHand(GameState.board(state));
+            int play = Board.bestPlay(state);
+            state = GameState.play(state, play, (Integer.bitCount(play) == 3) ? PlayTable.scoreOf(play) : 0);
+        }
+    }
+
+    /**
+     * play a game with the object model, the way ccontroller plays it: deal until the board is complete, play the
+     * suggested play, and make a new Board for the next turn
+     *
+     * @param order the ids of the cards, in the order they are dealt
+     * @return the final score of the game
+     */
+    static int playObjects(int[] order) {
+        Deck deck = new Deck();
+        Board config = new Board(deck);
+        int score = 0, next = 0;
+        while (true) {
+            while ((next < order.length) && !config.isComplete())
+                config.deal(cardModel.of(order[next++]));
+            if (next == order.length)
+                return score + PlayTable.bestHand(GameState.board(config.getState()));
+            Play suggested = config.bestPlay();
+            for (cardModel c : suggested.cards())
+                deck.discard(c);
+            if (!suggested.isRemoval())
+                score += suggested.score();
+            config = new Board(config, score);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package view;
 
+import model.solver.Distribution;
+
 /**
  * @author Will Clifford (GitHub: wtc8754)
  */
@@ -7,4 +9,25 @@ public interface ScoreObserver {
 
     void updateScore(int score, int maxscore);
 
+    /**
+     * update the highest achievable score when it may only be a lower bound, i.e. the solver ran out of time before it
+     * could prove that nothing higher can be reached. by default this is shown like any other maximum score.
+     *
+     * @param score    the current score
+     * @param maxscore a final score that can be reached
+     * @param exact    true iff no higher final score can be reached
+     */
+    default void updateBound(int score, int maxscore, boolean exact) {
+        updateScore(score, maxscore);
+    }
+
+    /**
+     * update the distribution of the final score when the suggested plays are followed. by default it is not shown.
+     *
+     * @param score        the current score
+     * @param distribution probability of each final score, exact or sampled. null while it is being calculated
+     */
+    default void updateDistribution(int score, Distribution distribution) {
+    }
+
 }
@@ -7,6 +7,7 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import model.Card;
+import model.CardListener;
 import model.enums.color;
 
 import java.util.HashMap;
@@ -14,7 +15,7 @@ import java.util.HashMap;
 /**
  * @author Will Clifford (GitHub: wtc8754)
  */
-public class cardView extends VBox implements Card {
+public class cardView extends VBox implements Card, CardListener {
 
     /**
      * color of this card
@@ -229,6 +230,13 @@ public class cardView extends VBox implements Card {
         indicator.setStyle("-fx-background-color: #00FF00; -fx-border-color: #FFFFFF; -fx-border-width: 2px");
     }
 
+    /**
+     * take back the suggestion on this card by turning the indicator box black again
+     */
+    public void clearSuggestion() {
+        indicator.setStyle("-fx-background-color: #000000; -fx-border-color: #FFFFFF; -fx-border-width: 2px");
+    }
+
     /**
      * reset the size of this card, saving the new size so that it isn't reset to the old size
      *
@@ -2,6 +2,7 @@ package view;
 
 import controller.ccontroller;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -9,6 +10,8 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import model.solver.Distribution;
+import model.solver.MonteCarlo;
 
 import java.util.ArrayList;
 
@@ -44,6 +47,11 @@ public class project_greenlightUI extends Application implements ScoreObserver {
      */
     private Label scoreboard;
 
+    /**
+     * where the chance of reaching the target score will be displayed
+     */
+    private Label chance;
+
     /**
      * the controller that communicated between this UI and the model
      */
@@ -60,10 +68,13 @@ public class project_greenlightUI extends Application implements ScoreObserver {
     private final static String SPACER = "\t\t\t\t\t\t\t\t\t\t";
 
     /**
-     * reset the whole scene, prepare for a clean game. Since this replaces the controller, it also resets the model
+     * reset the whole scene, prepare for a clean game. Since this replaces the controller, it also resets the model and
+     * cancels anything the old controller was still solving.
      */
     private void reset() {
-        cont = new ccontroller();
+        if (cont != null)
+            cont.shutdown();
+        cont = new ccontroller(Platform::runLater);
         cont.registerForUpdates(this);
         menuView mv = new menuView(this);
         VBox mainBox = new VBox() {{
@@ -82,10 +93,15 @@ public class project_greenlightUI extends Application implements ScoreObserver {
     private HBox setupControl() {
         scoreboard = new Label();
         scoreboard.setFont(new Font("Arial", 14));
-        scoreboard.setPrefSize(603, 30);
+        scoreboard.setPrefSize(603 - 110, 30);
         scoreboard.setPadding(new Insets(0, 10, 0, 10));
         updateScore(0, -1);
 
+        chance = new Label();
+        chance.setFont(new Font("Arial", 14));
+        chance.setTextFill(new Color(1, 1, 1, 1));
+        chance.setPrefSize(110, 30);
+
         Button next = new Button("Next");
         next.setOnAction(o -> cont.play());
         next.setPrefSize(60, 30);
@@ -98,7 +114,7 @@ public class project_greenlightUI extends Application implements ScoreObserver {
         }
 
         HBox control = new HBox();
-        control.getChildren().addAll(reset, scoreboard, next);
+        control.getChildren().addAll(reset, scoreboard, chance, next);
         control.setPadding(new Insets(3, 6, 6, 6));
         return control;
     }
@@ -126,7 +142,7 @@ public class project_greenlightUI extends Application implements ScoreObserver {
     void updateSize(int buttsize) {
         for (cardView cv : cvs)
             cv.setSize(buttsize);
-        scoreboard.setPrefSize((buttsize * 15) - 72, 30);
+        scoreboard.setPrefSize((buttsize * 15) - 72 - 110, 30);
         primaryStage.close();
         primaryStage.setScene(mainscene);
         primaryStage.setAlwaysOnTop(true);
@@ -143,26 +159,62 @@ public class project_greenlightUI extends Application implements ScoreObserver {
     public void updateScore(int score, int maxscore) {
         scoreboard.setTextFill(new Color(1, 1, 1, 1));
 
-        String spcr;
-        if (score - 99 > 0)
-            spcr = SPACER;
-        else if (score - 9 > 0)
-            spcr = SPACER;
-        else
-            spcr = SPACER + "\t";
-
         if (maxscore == -1) {
-            scoreboard.setText("Score : " + score + spcr + "Highest achievable : unknown");
+            scoreboard.setText("Score : " + score + spacer(score) + "Highest achievable : unknown");
         } else if (maxscore == -100) {
-            scoreboard.setText("Score : " + score + spcr + "Highest achievable : calculating...");
+            scoreboard.setText("Score : " + score + spacer(score) + "Highest achievable : calculating...");
         } else if (maxscore < 300) {
             scoreboard.setTextFill(new Color(1, 0, 0, 1));
-            scoreboard.setText("Score : " + score + spcr + "Highest achievable : " + maxscore);
+            scoreboard.setText("Score : " + score + spacer(score) + "Highest achievable : " + maxscore);
         } else {
-            scoreboard.setText("Score : " + score + spcr + "Highest achievable : " + maxscore);
+            scoreboard.setText("Score : " + score + spacer(score) + "Highest achievable : " + maxscore);
         }
     }
 
+    /**
+     * display the score on the scoreboard, where the highest possible score may only be a lower bound.
+     *
+     * @param score current score
+     * @param maxscore a score that can be reached
+     * @param exact true iff no higher score can be reached
+     */
+    @Override
+    public void updateBound(int score, int maxscore, boolean exact) {
+        updateScore(score, maxscore);
+        if (!exact && (maxscore >= 0))
+            scoreboard.setText("Score : " + score + spacer(score) + "Highest achievable : at least " + maxscore);
+    }
+
+    /**
+     * display the chance of reaching the target score, e.g. "P(>=400) = 37%". a sampled chance is marked with a ~.
+     *
+     * @param score current score
+     * @param distribution probability of each final score, null while it is being calculated
+     */
+    @Override
+    public void updateDistribution(int score, Distribution distribution) {
+        if (distribution == null) {
+            chance.setText(String.format("P(\u2265%d) ...", MonteCarlo.TARGET));
+            return;
+        }
+        double p = distribution.getProbabilityAtLeast(MonteCarlo.TARGET);
+        chance.setText(String.format("P(\u2265%d) %s %.0f%%", MonteCarlo.TARGET, distribution.isExact() ? "=" : "~",
+                100 * p));
+    }
+
+    /**
+     * @param score current score
+     * @return the space between the score and the highest achievable score
+     */
+    private String spacer(int score) {
+        if (score - 99 > 0)
+            return SPACER;
+        else if (score - 9 > 0)
+            return SPACER;
+        else
+            return SPACER + "\t";
+    }
+
     /**
      * Initialize the stage/scene, show the stage
      *